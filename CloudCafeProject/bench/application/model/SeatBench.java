@@ -0,0 +1,85 @@
+package application.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * Seat assignment benchmark: times TableManager.assignSeats on a generated floor of
+ * several hundred tables, mostly occupied, for a mix of party sizes with and without VIP
+ * status, both with the reservation check the order screen uses and with a status check
+ * only, plus the worst case of a full floor.
+ *
+ * Run it from an empty directory; it writes its tables.csv there:
+ *   java -cp bin:bench-classes:<javafx jars> application.model.SeatBench [vip tables] [tables per size]
+ */
+public class SeatBench {
+    private static final int CALLS = 200_000;
+    private static final int[] PARTIES = {1, 2, 3, 4, 5, 6, 8, 10, 12, 16};
+
+    public static void main(String[] args) throws Exception {
+        int vipCount = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        int perSize = args.length > 1 ? Integer.parseInt(args[1]) : 160;
+        writeFloor(vipCount, perSize);
+
+        TableManager tables = new TableManager(new ChangeBus());
+        List<Table> floor = tables.getFloorOrder();
+        Random random = new Random(3);
+        for (Table t : floor) {
+            if (random.nextInt(100) < 70) t.occupy("Bench");
+        }
+        ReservationBook book = new ReservationBook(tables);
+        Predicate<Table> unbooked = book.freeDuring(LocalDateTime.now(), 60);
+        Predicate<Table> usable = t -> t.getStatus() == TableStatus.AVAILABLE && unbooked.test(t);
+        Predicate<Table> available = t -> t.getStatus() == TableStatus.AVAILABLE;
+
+        System.out.println(floor.size() + " tables, 70% occupied");
+        System.out.println("party 3 -> " + describe(tables.assignSeats(3, false, usable))
+                + ", party 5 -> " + describe(tables.assignSeats(5, false, usable))
+                + ", party 14 -> " + describe(tables.assignSeats(14, false, usable))
+                + ", VIP party 4 -> " + describe(tables.assignSeats(4, true, usable))
+                + ", party 200 -> " + describe(tables.assignSeats(200, false, usable)));
+
+        time(tables, usable); // Warm-up
+        System.out.printf("with reservation check: %.0f ns/call%n", time(tables, usable));
+        System.out.printf("status check only:      %.0f ns/call%n", time(tables, available));
+        for (Table t : floor) t.occupy("Bench");
+        System.out.printf("full floor, no fit:     %.0f ns/call%n", time(tables, usable));
+        System.exit(0); // The persistence writer thread is not a daemon
+    }
+
+    /** VIP 4-tops plus perSize each of 6-, 4- and 2-tops, in the tables.csv format. */
+    private static void writeFloor(int vipCount, int perSize) throws Exception {
+        List<String> rows = new ArrayList<>();
+        for (int i = 0; i < vipCount; i++) rows.add(new Table("VIP " + (i + 1), 4, true).toCSV());
+        int[] capacities = {6, 4, 2};
+        for (int c = 0; c < capacities.length; c++) {
+            for (int i = 0; i < perSize; i++) rows.add(new Table("T" + (c * perSize + i + 1), capacities[c], false).toCSV());
+        }
+        CsvFiles.write("tables.csv", "ID,Capacity,IsVIP,Status,Customer", rows);
+    }
+
+    /** @return the mean time of one assignSeats call over the party mix. */
+    private static double time(TableManager tables, Predicate<Table> usable) {
+        int seated = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            seated += tables.assignSeats(PARTIES[i % PARTIES.length], i % 3 == 0, usable).size();
+        }
+        double nanos = (double) (System.nanoTime() - start) / CALLS;
+        if (seated < 0) System.out.println(); // Keeps the loop from being optimised away
+        return nanos;
+    }
+
+    private static String describe(List<Table> seats) {
+        if (seats.isEmpty()) return "none";
+        StringBuilder text = new StringBuilder();
+        for (Table t : seats) {
+            if (text.length() > 0) text.append('+');
+            text.append(t.getId()).append('(').append(t.getCapacity()).append(')');
+        }
+        return text.toString();
+    }
+}
\ No newline at end of file
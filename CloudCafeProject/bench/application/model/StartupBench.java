@@ -0,0 +1,115 @@
+package application.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Startup benchmark: loads the four stores from their CSV files and from their binary
+ * images (see BinarySnapshot) in alternating rounds and prints the median load time of
+ * each store per format.
+ *
+ * Run it from an empty directory; it writes its data files there:
+ *   java -cp bin:bench-classes:<javafx jars> application.model.StartupBench [users] [tables]
+ */
+public class StartupBench {
+    private static final int ROUNDS = 7;
+    private static final String[] FILES = {"inventory_data.csv", "menu_data.csv", "users.csv", "tables.csv"};
+    private static final String[] STORES = {"Inventory", "Menu", "UserManager", "TableManager"};
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("cafe.binarySnapshots", "true"); // Read once, when BinarySnapshot loads
+        int userCount = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int tableCount = args.length > 1 ? Integer.parseInt(args[1]) : 530;
+        writeData(userCount, tableCount);
+
+        // Both paths must see the same rows, or the times compare different work
+        for (boolean binary : new boolean[] {false, true}) {
+            prefer(binary);
+            ChangeBus events = new ChangeBus();
+            int users = new UserManager(events).getUserCount();
+            int tables = new TableManager(events).getTables().size();
+            if (users != userCount || tables != tableCount) {
+                throw new IllegalStateException((binary ? "image" : "csv") + " load found " + users + " users, " + tables + " tables");
+            }
+        }
+
+        long[][] csv = new long[STORES.length][ROUNDS];
+        long[][] image = new long[STORES.length][ROUNDS];
+        for (int round = -1; round < ROUNDS; round++) { // Round -1 warms up both paths
+            for (boolean binary : new boolean[] {false, true}) {
+                prefer(binary);
+                long[] nanos = loadAll();
+                if (round < 0) continue;
+                for (int s = 0; s < STORES.length; s++) (binary ? image : csv)[s][round] = nanos[s];
+            }
+        }
+
+        System.out.printf("%d users, %d tables; median of %d rounds%n", userCount, tableCount, ROUNDS);
+        System.out.printf("%-14s %10s %10s%n", "store", "csv ms", "image ms");
+        for (int s = 0; s < STORES.length; s++) {
+            System.out.printf("%-14s %10.1f %10.1f%n", STORES[s], median(csv[s]), median(image[s]));
+        }
+        System.exit(0); // The persistence writer thread is not a daemon
+    }
+
+    /** Writes large users and tables files, then lets every store save its CSV and image. */
+    private static void writeData(int userCount, int tableCount) throws IOException {
+        String password = PasswordHasher.hash("bench"); // Hashed once; loading never checks it
+        List<String> users = new ArrayList<>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            users.add(new User(String.format("C%07d", i), "Customer " + i, "Customer", i % 500, password).toCSV());
+        }
+        CsvFiles.write("users.csv", "ID,Name,Role,Points,Password", users);
+
+        List<String> tables = new ArrayList<>(tableCount);
+        for (int i = 0; i < tableCount; i++) {
+            tables.add(new Table("T" + i, 2 + 2 * (i % 3), i % 12 == 0).toCSV());
+        }
+        CsvFiles.write("tables.csv", "ID,Capacity,IsVIP,Status,Customer", tables);
+
+        ChangeBus events = new ChangeBus();
+        PersistenceService writer = PersistenceService.getInstance();
+        writer.write(new Inventory(events).snapshot());
+        writer.write(new Menu().snapshot());
+        writer.write(new UserManager(events).snapshot());
+        writer.write(new TableManager(events).snapshot());
+        writer.flush();
+    }
+
+    /** Makes each image usable (newer than its CSV) or stale (older), which decides the load path. */
+    private static void prefer(boolean binary) {
+        long now = System.currentTimeMillis();
+        for (String name : FILES) {
+            new File(name).setLastModified(binary ? now - 10_000 : now);
+            new File(BinarySnapshot.imageName(name)).setLastModified(binary ? now : now - 10_000);
+        }
+    }
+
+    private static long[] loadAll() {
+        ChangeBus events = new ChangeBus();
+        long[] nanos = new long[STORES.length];
+        long t0 = System.nanoTime();
+        Inventory inventory = new Inventory(events);
+        long t1 = System.nanoTime();
+        new Menu().bind(inventory);
+        long t2 = System.nanoTime();
+        new UserManager(events);
+        long t3 = System.nanoTime();
+        new TableManager(events);
+        long t4 = System.nanoTime();
+        nanos[0] = t1 - t0;
+        nanos[1] = t2 - t1;
+        nanos[2] = t3 - t2;
+        nanos[3] = t4 - t3;
+        return nanos;
+    }
+
+    private static double median(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2] / 1e6;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+package application.model;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Totals benchmark: prices carts of a few and of many lines through Cart (discount, total
+ * and points in long centavos) and reports the bytes allocated and the time per call on
+ * the pricing path, which should allocate nothing whatever the number of lines. Also
+ * checks the totals against a sum done line by line.
+ *
+ *   java -cp bin:bench-classes:<javafx jars> application.model.TotalsBench
+ */
+public class TotalsBench {
+    private static final int ROUNDS = 5;
+    private static final int CALLS = 1_000_000;
+    private static long sink;
+
+    public static void main(String[] args) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        User vip = new User("V001", "Bench VIP", "VIP", 0, "bench");
+        User member = new User("C001", "Bench Member", "Customer", 0, "bench");
+        for (int lineCount : new int[] {5, 500}) {
+            Cart cart = new Cart();
+            long expected = 0;
+            for (MenuItem item : items(lineCount)) {
+                cart.add(item);
+                cart.add(item);
+                expected += 2 * item.getPriceCentavos();
+            }
+            cart.setCustomer(vip);
+            if (cart.getSubtotal() != expected || cart.getTotal() != expected - cart.getDiscount()) {
+                throw new IllegalStateException("subtotal " + cart.getSubtotal() + " != " + expected);
+            }
+
+            run(cart, vip, member); // Warm-up, so the JIT has compiled the pricing path
+            long bytes = Long.MAX_VALUE, nanos = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long allocated = threads.getCurrentThreadAllocatedBytes();
+                long start = System.nanoTime();
+                run(cart, vip, member);
+                nanos = Math.min(nanos, System.nanoTime() - start);
+                bytes = Math.min(bytes, threads.getCurrentThreadAllocatedBytes() - allocated);
+            }
+
+            System.out.printf("%3d lines: %d bytes allocated per %,d pricings, %.1f ns/call (best of %d); "
+                    + "subtotal %s, discount %s, total %s, %d points%n",
+                    lineCount, bytes, CALLS, (double) nanos / CALLS, ROUNDS,
+                    Money.format(cart.getSubtotal()), Money.format(cart.getDiscount()),
+                    Money.format(cart.getTotal()), cart.getPointsEarned());
+        }
+        if (sink == 42) System.out.println(); // Keeps the loops from being optimised away
+    }
+
+    /**
+     * Reads everything the order screen shows after a cart change, CALLS times. The
+     * customer alternates so both discount branches run and no read can be hoisted.
+     */
+    private static void run(Cart cart, User vip, User member) {
+        long sum = 0;
+        for (int i = 0; i < CALLS; i++) {
+            cart.setCustomer((i & 1) == 0 ? vip : member);
+            sum += cart.getTotal() + cart.getDiscount() + cart.getPointsEarned();
+        }
+        cart.setCustomer(vip);
+        sink += sum;
+    }
+
+    /** Items priced at odd centavo amounts, which a double sum would not add up exactly. */
+    private static List<MenuItem> items(int count) {
+        List<MenuItem> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            items.add(new MenuItem("Item " + i, 1999L + 101 * i, "Bench", "", new HashMap<>()));
+        }
+        return items;
+    }
+}
\ No newline at end of file
@@ -2,11 +2,6 @@ package application;
 
 import application.model.*;
 import application.model.MenuItem;
-import javafx.beans.property.SimpleDoubleProperty;
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
-import javafx.collections.FXCollections;
-import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -15,46 +10,35 @@ import javafx.scene.layout.*;
 import javafx.scene.text.Font; 
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Predicate;
 
 public class CashTransactionScreen {
+    // How long a walk-in party is expected to stay; tables booked sooner are not offered
+    private static final int WALK_IN_MINUTES = 60;
 
     private Cafe cafe;
-    private ObservableList<CartItem> cartItems;
+    private final Cart cart = new Cart();
     private Label totalLabel, discountLabel, finalTotalLabel, customerNameLabel;
     private TextField customerIdField;
-    private TableView<CartItem> cartTable;
+    private TableView<Cart.Line> cartTable;
     
-    private String currentTableSelection = null;
+    private List<Table> currentTableSelection = Collections.emptyList(); // One table, or adjacent ones for a large party
     private Label selectedTableLabel; 
 
-    // --- CartItem Class ---
-    public static class CartItem {
-        private MenuItem item;
-        private SimpleStringProperty name;
-        private SimpleIntegerProperty qty;
-        private SimpleDoubleProperty price;
-
-        public CartItem(MenuItem item) {
-            this.item = item;
-            this.name = new SimpleStringProperty(item.getName());
-            this.qty = new SimpleIntegerProperty(1);
-            this.price = new SimpleDoubleProperty(item.getPrice());
-        }
-        public String getName() { return name.get(); }
-        public int getQty() { return qty.get(); }
-        public double getPrice() { return price.get(); }
-        public MenuItem getItem() { return item; }
-        public void increment() { qty.set(qty.get() + 1); price.set(item.getPrice() * qty.get()); }
-        public void decrement() { qty.set(qty.get() - 1); price.set(item.getPrice() * qty.get()); }
-    }
+    // Customer looked up for the ID field; only looked up again when the ID changes
+    private String resolvedCustomerId = "";
+    private User customer;
 
     public CashTransactionScreen(Cafe cafe) {
         this.cafe = cafe;
-        this.cartItems = FXCollections.observableArrayList();
+        // Every cart change adjusts the running subtotal, which refreshes the totals
+        cart.subtotalProperty().addListener((obs, oldVal, newVal) -> updateTotals());
     }
 
     public void start(Stage stage) {
@@ -84,37 +68,11 @@ public class CashTransactionScreen {
         Label menuHeader = new Label("Select Items");
         menuHeader.getStyleClass().add("header-label");
 
-        VBox menuContent = new VBox(25);
-        List<String> categories = List.of("Cloudy Brews", "Weather Refreshers", "Elevated Bites");
-
-        for (String category : categories) {
-            Label catHeader = new Label(category);
-            catHeader.setStyle("-fx-text-fill: #0077B6; -fx-font-weight: bold; -fx-font-size: 15px;");
-            
-            FlowPane catGrid = new FlowPane();
-            catGrid.setHgap(12);
-            catGrid.setVgap(12);
-            
-            List<MenuItem> items = cafe.getMenu().getItems().values().stream()
-                .filter(i -> i.getCategory().equalsIgnoreCase(category))
-                .collect(Collectors.toList());
-
-            for (MenuItem item : items) {
-                Button btn = new Button(item.getName() + "\n₱" + item.getPrice());
-                btn.setPrefSize(140, 90);
-                btn.getStyleClass().add("coffee-button");
-                btn.setStyle("-fx-wrap-text: true; -fx-text-alignment: center;");
-                btn.setOnAction(e -> addToCart(item));
-                catGrid.getChildren().add(btn);
-            }
-            if(!items.isEmpty()) menuContent.getChildren().addAll(catHeader, catGrid);
-        }
-        
-        ScrollPane scrollPane = new ScrollPane(menuContent);
-        scrollPane.setFitToWidth(true);
-        scrollPane.setStyle("-fx-background-color: transparent; -fx-padding: 0;");
+        // A pooled grid, this screen's own until it closes and hands it back
+        MenuGrid menuGrid = MenuGrid.open(cafe, this::addToCart);
+        stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> menuGrid.dispose());
         
-        menuCard.getChildren().addAll(menuHeader, scrollPane);
+        menuCard.getChildren().addAll(menuHeader, menuGrid.getView());
 
         // --- RIGHT: RECEIPT CARD ---
         VBox cartCard = new VBox(15);
@@ -140,18 +98,19 @@ public class CashTransactionScreen {
 
         // Cart Table
         cartTable = new TableView<>();
-        cartTable.setItems(cartItems);
+        cartTable.setItems(cart.getLines());
         cartTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
         
-        TableColumn<CartItem, String> colName = new TableColumn<>("Item");
-        colName.setCellValueFactory(cell -> new SimpleStringProperty(cell.getValue().getName()));
+        // Cells observe each line's own properties, so a quantity change updates only its row
+        TableColumn<Cart.Line, String> colName = new TableColumn<>("Item");
+        colName.setCellValueFactory(cell -> cell.getValue().getItem().nameProperty());
         
-        TableColumn<CartItem, Integer> colQty = new TableColumn<>("Qty");
-        colQty.setCellValueFactory(cell -> new SimpleIntegerProperty(cell.getValue().getQty()).asObject());
+        TableColumn<Cart.Line, Integer> colQty = new TableColumn<>("Qty");
+        colQty.setCellValueFactory(cell -> cell.getValue().qtyProperty().asObject());
         colQty.setMaxWidth(50);
         
-        TableColumn<CartItem, Double> colPrice = new TableColumn<>("₱");
-        colPrice.setCellValueFactory(cell -> new SimpleDoubleProperty(cell.getValue().getPrice()).asObject());
+        TableColumn<Cart.Line, Double> colPrice = new TableColumn<>("₱");
+        colPrice.setCellValueFactory(cell -> cell.getValue().priceProperty().asObject());
         colPrice.setMaxWidth(70);
         
         cartTable.getColumns().addAll(colName, colQty, colPrice);
@@ -170,7 +129,7 @@ public class CashTransactionScreen {
         clearBtn.setStyle("-fx-text-fill: #757575; -fx-background-color: #EEEEEE;");
         clearBtn.setMaxWidth(Double.MAX_VALUE);
         HBox.setHgrow(clearBtn, Priority.ALWAYS);
-        clearBtn.setOnAction(e -> { cartItems.clear(); updateTotals(); });
+        clearBtn.setOnAction(e -> cart.clear());
         
         cartActions.getChildren().addAll(removeBtn, clearBtn);
 
@@ -218,7 +177,7 @@ public class CashTransactionScreen {
         stage.show();
     }
 
-    // --- VIP SEAT LOGIC ---
+    // --- SEAT LOGIC ---
     private void showTableMapDialog(Stage owner) {
         final Stage dialog = new Stage();
         dialog.initModality(Modality.APPLICATION_MODAL);
@@ -234,74 +193,54 @@ public class CashTransactionScreen {
         title.getStyleClass().add("title-label");
         title.setStyle("-fx-font-size: 24px;");
 
-        ToggleGroup tableGroup = new ToggleGroup();
-        
-        // Check if current customer is VIP
-        String custID = customerIdField.getText().trim().toUpperCase();
-        boolean isVIP = custID.startsWith("V"); 
-
-        // 1. VIP AREA
-        VBox vipArea = new VBox(10);
-        vipArea.getStyleClass().add("area-box");
-        vipArea.setAlignment(Pos.CENTER);
-        Label vipLabel = new Label("VIP AREA");
-        vipLabel.getStyleClass().add("header-label");
-        
-        ToggleButton vip1 = createTableBtn("VIP 1", "table-vip", tableGroup);
-        ToggleButton vip2 = createTableBtn("VIP 2", "table-vip", tableGroup);
-        
-        // ALERT if non-VIP tries to click
-        if (!isVIP) {
-            vip1.setOnAction(e -> { vip1.setSelected(false); showVipAlert(); });
-            vip2.setOnAction(e -> { vip2.setSelected(false); showVipAlert(); });
-        }
-        vipArea.getChildren().addAll(vipLabel, vip1, vip2);
-
-        // 2. CUSTOMER AREA (4 Pax)
-        VBox centerArea = new VBox(15);
-        centerArea.setAlignment(Pos.CENTER);
-        Label centerLabel = new Label("Customer Area (4 Pax)");
-        centerLabel.getStyleClass().add("header-label");
-        ToggleButton t1 = createTableBtn("Table 1", "table-reg-4", tableGroup);
-        ToggleButton t2 = createTableBtn("Table 2", "table-reg-4", tableGroup);
-        ToggleButton t3 = createTableBtn("Table 3", "table-reg-4", tableGroup);
-        centerArea.getChildren().addAll(centerLabel, t1, t2, t3);
-
-        // 3. SIDE AREA (2 Pax)
-        VBox sideArea = new VBox(10);
-        sideArea.setAlignment(Pos.CENTER);
-        Label sideLabel = new Label("Side (2 Pax)");
-        sideLabel.getStyleClass().add("header-label");
-        FlowPane sideFlow = new FlowPane(10, 10);
-        sideFlow.setPrefWrapLength(150);
-        sideFlow.setAlignment(Pos.CENTER);
-        sideFlow.getChildren().addAll(
-            createTableBtn("T4", "table-reg-2", tableGroup), createTableBtn("T5", "table-reg-2", tableGroup),
-            createTableBtn("T6", "table-reg-2", tableGroup), createTableBtn("T7", "table-reg-2", tableGroup),
-            createTableBtn("T8", "table-reg-2", tableGroup)
-        );
-        sideArea.getChildren().addAll(sideLabel, sideFlow);
-
-        HBox mapContainer = new HBox(40);
-        mapContainer.setAlignment(Pos.CENTER);
-        mapContainer.getChildren().addAll(vipArea, centerArea, sideArea);
+        // VIP tables are only offered to VIP members
+        User u = resolveCustomer(customerIdField.getText().trim().toUpperCase());
+        boolean isVIP = u != null && u.isVIP();
+
+        // Free now and not booked for the length of a visit
+        TableManager tableManager = cafe.getTableManager();
+        Predicate<Table> unbooked = cafe.getReservations().freeDuring(LocalDateTime.now(), WALK_IN_MINUTES);
+        Predicate<Table> usable = t -> t.getStatus() == TableStatus.AVAILABLE
+                && (isVIP || !t.isVip()) && unbooked.test(t);
+
+        TableMap map = new TableMap(tableManager);
+        // Occupied tables stay selectable for a party that is already seated and orders more
+        map.setAvailable(t -> usable.test(t) || (t.getStatus() == TableStatus.OCCUPIED && (isVIP || !t.isVip())));
+
+        int allSeats = TableMap.seatsAt(tableManager.getFloorOrder());
+        Spinner<Integer> partySpinner = new Spinner<>(1, Math.max(1, allSeats), Math.min(2, Math.max(1, allSeats)));
+        Label suggestionLabel = new Label();
+        HBox partyBox = new HBox(10, new Label("Party size:"), partySpinner, suggestionLabel);
+        partyBox.setAlignment(Pos.CENTER);
 
         Button confirmBtn = new Button("Confirm Selection");
         confirmBtn.getStyleClass().add("module-button");
         confirmBtn.setDisable(true);
         confirmBtn.setOnAction(e -> {
-            ToggleButton selected = (ToggleButton) tableGroup.getSelectedToggle();
-            if (selected != null) {
-                currentTableSelection = selected.getText();
-                selectedTableLabel.setText(currentTableSelection);
+            List<Table> selected = map.getSelected();
+            if (!selected.isEmpty()) {
+                currentTableSelection = selected;
+                selectedTableLabel.setText(TableMap.describe(selected));
                 selectedTableLabel.setStyle("-fx-text-fill: #0077B6; -fx-font-weight: bold; -fx-font-size: 14px;");
                 dialog.close();
             }
         });
-
-        tableGroup.selectedToggleProperty().addListener((obs, oldVal, newVal) -> confirmBtn.setDisable(newVal == null));
-
-        dialogLayout.getChildren().addAll(title, mapContainer, confirmBtn);
+        map.setOnSelectionChanged(() -> confirmBtn.setDisable(map.getSelected().isEmpty()));
+
+        // Pre-select the best fit for the party; the cashier can still change it
+        Runnable suggest = () -> {
+            List<Table> best = tableManager.assignSeats(partySpinner.getValue(), isVIP, usable);
+            map.select(best);
+            suggestionLabel.setText(best.isEmpty() ? "No free seating for this party"
+                    : "Suggested: " + TableMap.describe(best) + " (" + TableMap.seatsAt(best) + " seats)");
+        };
+        partySpinner.valueProperty().addListener((obs, oldVal, newVal) -> suggest.run());
+        suggest.run();
+
+        ScrollPane mapScroll = new ScrollPane(map.getView());
+        mapScroll.setFitToWidth(true);
+
+        dialogLayout.getChildren().addAll(title, partyBox, mapScroll, confirmBtn);
         Scene dialogScene = new Scene(dialogLayout, 900, 600);
         if(getClass().getResource("application.css") != null)
             dialogScene.getStylesheets().add(getClass().getResource("application.css").toExternalForm());
@@ -309,39 +248,28 @@ public class CashTransactionScreen {
         dialog.showAndWait();
     }
 
-    private void showVipAlert() {
-        Alert a = new Alert(Alert.AlertType.WARNING);
-        a.setTitle("Restricted Access");
-        a.setHeaderText("VIP Section Only");
-        a.setContentText("This seat is reserved for VIP customers. Please select a Regular seat.");
-        a.showAndWait();
-    }
-
-    private ToggleButton createTableBtn(String name, String cssClass, ToggleGroup group) {
-        ToggleButton btn = new ToggleButton(name);
-        btn.getStyleClass().add("table-btn");
-        btn.getStyleClass().add(cssClass);
-        btn.setToggleGroup(group);
-        return btn;
-    }
-
     // --- STANDARD LOGIC ---
     private void handleRemoveSelected() {
-        CartItem selected = cartTable.getSelectionModel().getSelectedItem();
+        Cart.Line selected = cartTable.getSelectionModel().getSelectedItem();
         if (selected == null) return;
-        if (selected.getQty() > 1) { selected.decrement(); cartTableRefresh(); } else { cartItems.remove(selected); }
-        updateTotals();
+        cart.removeOne(selected);
     }
     private void addToCart(MenuItem item) {
-        if (!item.isAvailable(cafe.getInventory())) { new Alert(Alert.AlertType.WARNING, "Insufficient stock").show(); return; }
-        for (CartItem ci : cartItems) { if (ci.getItem().getName().equals(item.getName())) { ci.increment(); cartTableRefresh(); updateTotals(); return; } }
-        cartItems.add(new CartItem(item)); updateTotals();
+        if (!item.isAvailable()) { new Alert(Alert.AlertType.WARNING, "Insufficient stock").show(); return; }
+        cart.add(item);
+    }
+
+    /** Looks up the customer for an ID (cached until the ID changes) and prices the cart for them. */
+    private User resolveCustomer(String uid) {
+        if (!uid.equals(resolvedCustomerId)) {
+            customer = uid.isEmpty() ? null : cafe.getUserManager().getUser(uid);
+            resolvedCustomerId = uid;
+        }
+        cart.setCustomer(customer);
+        return customer;
     }
-    private void cartTableRefresh() { if (!cartItems.isEmpty()) cartItems.set(0, cartItems.get(0)); }
     
     private void updateTotals() {
-        double subtotal = cartItems.stream().mapToDouble(CartItem::getPrice).sum();
-        double discount = 0;
         String uid = customerIdField.getText().trim().toUpperCase();
 
         // CHECK FOR INVALID IDS (Manager/Cashier)
@@ -349,17 +277,15 @@ public class CashTransactionScreen {
             customerNameLabel.setText("Invalid Customer ID");
             customerNameLabel.setStyle("-fx-text-fill: red; -fx-font-style: italic;");
             customerIdField.clear();
-            totalLabel.setText(String.format("Subtotal: ₱%.2f", subtotal));
-            discountLabel.setText(String.format("Discount: -₱%.2f", 0.0));
-            finalTotalLabel.setText(String.format("Total: ₱%.2f", subtotal));
+            cart.setCustomer(null);
+            showTotals();
             return;
         }
 
-        User u = cafe.getUserManager().getUser(uid);
+        User u = resolveCustomer(uid);
         if (u != null) { 
             customerNameLabel.setText(u.getName() + " (" + u.getRole() + ")");
             customerNameLabel.setStyle("-fx-text-fill: #0077B6; -fx-font-weight: bold;");
-            if (u.isVIP()) discount = subtotal * 0.10; 
         } else if (!uid.isEmpty()) {
             customerNameLabel.setText("User not found");
             customerNameLabel.setStyle("-fx-text-fill: red;");
@@ -368,49 +294,72 @@ public class CashTransactionScreen {
             customerNameLabel.setStyle("-fx-text-fill: #757575; -fx-font-style: italic;");
         }
         
-        totalLabel.setText(String.format("Subtotal: ₱%.2f", subtotal));
-        discountLabel.setText(String.format("Discount: -₱%.2f", discount));
-        finalTotalLabel.setText(String.format("Total: ₱%.2f", subtotal - discount));
+        showTotals();
+    }
+
+    /** Shows the cart's totals; the labels are display only and never read back. */
+    private void showTotals() {
+        totalLabel.setText("Subtotal: " + Money.format(cart.getSubtotal()));
+        discountLabel.setText("Discount: -" + Money.format(cart.getDiscount()));
+        finalTotalLabel.setText("Total: " + Money.format(cart.getTotal()));
     }
 
     private void handleCheckout() {
-        if (cartItems.isEmpty()) { new Alert(Alert.AlertType.ERROR, "Cart is empty!").show(); return; }
-        if (currentTableSelection == null) { new Alert(Alert.AlertType.ERROR, "Please select a table first!").show(); return; }
+        if (cart.isEmpty()) { new Alert(Alert.AlertType.ERROR, "Cart is empty!").show(); return; }
+        if (currentTableSelection.isEmpty()) { new Alert(Alert.AlertType.ERROR, "Please select a table first!").show(); return; }
+
+        // Deduct the whole cart at once, or nothing if any shared ingredient runs short
+        Inventory inventory = cafe.getInventory();
+        OrderDemand order = inventory.newOrder();
+        for (Cart.Line line : cart.getLines()) {
+            order.add(line.getItem().getPlan(), line.getQty());
+        }
+        if (!inventory.reserve(order)) {
+            String missing = order.getShortfall() != null ? order.getShortfall().getName() : "an ingredient";
+            new Alert(Alert.AlertType.ERROR, "Insufficient stock of " + missing + " for this order.").show();
+            return;
+        }
 
-        double totalPaid = Double.parseDouble(finalTotalLabel.getText().replace("Total: ₱", ""));
-        
-        for (CartItem ci : cartItems) {
-            for (int i = 0; i < ci.getQty(); i++) {
-                for (java.util.Map.Entry<String, Integer> entry : ci.getItem().getIngredientsConsumed().entrySet()) {
-                    cafe.getInventory().getStock().get(entry.getKey()).deductStock(entry.getValue());
-                }
-            }
+        TransactionJournal journal = cafe.getJournal();
+        for (int i = 0; i < order.size(); i++) {
+            int id = order.ingredientId(i);
+            journal.logStock(inventory.getIngredient(id), -order.amountOf(id));
+        }
+
+        User u = resolveCustomer(customerIdField.getText().trim().toUpperCase());
+        if (u != null) {
+            int earned = cart.getPointsEarned();
+            u.addPoints(earned);
+            journal.logPoints(u, earned);
         }
-        
-        String uid = customerIdField.getText().trim();
-        User u = cafe.getUserManager().getUser(uid);
-        if (u != null) { u.addPoints((int)(totalPaid/10)); }
      // Update Table Status
-        if (currentTableSelection != null) {
-            Table t = cafe.getTableManager().getTable(currentTableSelection);
-            if (t != null) {
-                String custName = (u != null) ? u.getName() : "Guest";
-                t.occupy(custName);
-            }
+        String custName = (u != null) ? u.getName() : "Guest";
+        for (Table t : currentTableSelection) {
+            // A follow-up order leaves the party already seated there as it is
+            if (t.getStatus() == TableStatus.OCCUPIED) continue;
+            t.occupy(custName);
+            journal.logTable(t);
         }
+        String seat = TableMap.describe(currentTableSelection);
+
+        // Durable sales record for end-of-day reconciliation. Queued before the journal
+        // append: the writer thread runs appends in order, so a crash can never keep the
+        // stock and points of a sale while losing the sale itself.
+        List<OrderRecord.Line> lines = new ArrayList<>();
+        for (Cart.Line line : cart.getLines()) {
+            lines.add(new OrderRecord.Line(line.getName(), line.getQty(), line.getUnitPrice()));
+        }
+        cafe.getSalesLedger().record(seat, u != null ? u.getId() : "", lines, cart.getDiscount(), cart.getTotal());
 
-        
-        cafe.saveAll();
-        
-        
+        cafe.commit(); // One journal append instead of rewriting every CSV
 
         // --- SHOW RECEIPT ---
-        showReceipt(u != null ? u.getName() : "Guest", currentTableSelection);
+        showReceipt(custName, seat);
 
-        cartItems.clear(); 
+        cart.clear(); 
         updateTotals(); 
         customerIdField.clear();
-        currentTableSelection = null;
+        currentTableSelection = Collections.emptyList();
         selectedTableLabel.setText("No Table Selected");
         selectedTableLabel.setStyle("-fx-text-fill: #D32F2F; -fx-font-weight: bold;");
     }
@@ -443,7 +392,7 @@ public class CashTransactionScreen {
         addReceiptLine(details, "--------------------------------");
 
         VBox itemsBox = new VBox(2);
-        for (CartItem item : cartItems) {
+        for (Cart.Line item : cart.getLines()) {
             String line = String.format("%-2d %-18s %6.2f", item.getQty(), 
                           item.getName().length() > 18 ? item.getName().substring(0,18) : item.getName(), 
                           item.getPrice());
@@ -455,7 +404,7 @@ public class CashTransactionScreen {
         footer.setPadding(new Insets(10, 0, 0, 0));
         
         addReceiptLine(footer, "--------------------------------");
-        addReceiptLine(footer, "TOTAL: " + finalTotalLabel.getText().replace("Total: ", ""));
+        addReceiptLine(footer, "TOTAL: " + Money.format(cart.getTotal()));
         addReceiptLine(footer, "--------------------------------");
         
         Label thanks = new Label("THANK YOU!");
@@ -481,4 +430,4 @@ public class CashTransactionScreen {
         container.getChildren().add(l);
     }
 
-}
+}
\ No newline at end of file
@@ -20,6 +20,12 @@ public class CashierDashboard {
     }
 
     public void start(Stage stage, Stage loginStage) {
+        prepare(stage, loginStage);
+        stage.show();
+    }
+
+    /** Builds the dashboard into the stage without showing it (used to pre-warm it during login). */
+    public void prepare(Stage stage, Stage loginStage) {
         VBox root = new VBox(20);
         root.setPadding(new Insets(40));
         root.setAlignment(Pos.CENTER);
@@ -68,6 +74,5 @@ public class CashierDashboard {
         
         stage.setScene(scene);
         stage.setTitle("Cashier Dashboard");
-        stage.show();
     }
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package application;
 
 import application.model.Cafe;
+import application.model.PagedUserList;
 import application.model.User;
 import javafx.collections.FXCollections;
 import javafx.geometry.Insets;
@@ -27,7 +28,8 @@ public class CommunityScreen {
         title.getStyleClass().add("title-label");
 
         TableView<User> userTable = new TableView<>();
-        userTable.setItems(FXCollections.observableArrayList(cafe.getUserManager().getUsers().values()));
+        // Rows are read from the user store page by page as the table scrolls
+        userTable.setItems(FXCollections.observableList(new PagedUserList(cafe.getUserManager())));
         userTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
 
         TableColumn<User, String> idCol = new TableColumn<>("ID");
@@ -43,6 +45,7 @@ public class CommunityScreen {
         pointsCol.setCellValueFactory(new PropertyValueFactory<>("points"));
 
         userTable.getColumns().addAll(idCol, nameCol, roleCol, pointsCol);
+        for (TableColumn<User, ?> col : userTable.getColumns()) col.setSortable(false); // Kept in ID order
 
         Button backBtn = new Button("⬅ Back");
         backBtn.setOnAction(e -> stage.close());
@@ -1,6 +1,18 @@
 package application;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+
 import application.model.Cafe;
+import application.model.ChangeBus;
+import application.model.Reservation;
+import application.model.ReservationBook;
 import application.model.Table;
 import application.model.TableStatus;
 import application.model.User;
@@ -11,21 +23,40 @@ import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 
 public class CustomerDashboard {
+    // Bookable start times and lengths offered in the reservation dialog
+    private static final LocalTime FIRST_BOOKING = LocalTime.of(7, 0);
+    private static final LocalTime LAST_BOOKING = LocalTime.of(21, 0);
+    private static final Integer[] DURATIONS = { 30, 60, 90, 120, 180 }; // Minutes
+
     private Cafe cafe;
     private User currentUser;
+    private Runnable stopPoints = () -> {};
     
     // Track selection
-    private String currentTableSelection = null;
+    private TableMap tableMap;
     private Label selectedTableLabel; 
 
+    // Reservation dialog inputs; tables are enabled only while free for them
+    private DatePicker datePicker;
+    private ComboBox<LocalTime> timeBox;
+    private ComboBox<Integer> durationBox;
+    private Spinner<Integer> partySpinner;
+
     public CustomerDashboard(Cafe cafe, User user) {
         this.cafe = cafe;
         this.currentUser = user;
     }
 
     public void start(Stage stage, Stage loginStage) {
+        prepare(stage, loginStage);
+        stage.show();
+    }
+
+    /** Builds the dashboard into the stage without showing it (used to pre-warm it during login). */
+    public void prepare(Stage stage, Stage loginStage) {
         VBox root = new VBox(20);
         root.setPadding(new Insets(40));
         root.setAlignment(Pos.CENTER);
@@ -48,6 +79,22 @@ public class CustomerDashboard {
 
         card.getChildren().addAll(roleLbl, pointsLbl);
 
+        // Points earned at a register while the dashboard is open. Subscribed only while
+        // showing: a dashboard pre-warmed for a login that then fails is never shown, and
+        // must not stay reachable from the ChangeBus.
+        stage.addEventHandler(WindowEvent.WINDOW_SHOWN, e -> {
+            pointsLbl.setText("Cloud Points: " + currentUser.getPoints());
+            stopPoints = cafe.getEvents().subscribe(ChangeBus.POINTS, changed -> {
+                for (User u : changed) {
+                    if (u.getId().equals(currentUser.getId())) pointsLbl.setText("Cloud Points: " + u.getPoints());
+                }
+            });
+        });
+        stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> {
+            stopPoints.run();
+            stopPoints = () -> {};
+        });
+
         // VIP Reservation Button
         Button reserveBtn = new Button("📅 VIP Table Reservation");
         reserveBtn.getStyleClass().add("module-button");
@@ -76,7 +123,6 @@ public class CustomerDashboard {
         
         stage.setScene(scene);
         stage.setTitle("Customer Dashboard");
-        stage.show();
     }
 
     // --- RESERVATION DIALOG (Similar to Cashier Map but for Booking) ---
@@ -94,69 +140,50 @@ public class CustomerDashboard {
         Label title = new Label("Select a Table to Reserve");
         title.getStyleClass().add("title-label");
         title.setStyle("-fx-font-size: 24px;");
+
+        // When, how long and for how many
+        datePicker = new DatePicker(LocalDate.now());
+        timeBox = new ComboBox<>();
+        for (LocalTime t = FIRST_BOOKING; !t.isAfter(LAST_BOOKING); t = t.plusMinutes(ReservationBook.SLOT_MINUTES)) {
+            timeBox.getItems().add(t);
+        }
+        timeBox.setValue(nextBookableTime());
+        durationBox = new ComboBox<>();
+        durationBox.getItems().addAll(DURATIONS);
+        durationBox.setValue(90);
+        // Large parties can be seated across adjacent tables
+        int allSeats = Math.max(1, TableMap.seatsAt(cafe.getTableManager().getFloorOrder()));
+        partySpinner = new Spinner<>(1, allSeats, Math.min(2, allSeats));
+
+        HBox whenBox = new HBox(10, new Label("Date:"), datePicker, new Label("Time:"), timeBox,
+                new Label("Minutes:"), durationBox, new Label("Party:"), partySpinner);
+        whenBox.setAlignment(Pos.CENTER);
         
         // Feedback Label
         selectedTableLabel = new Label("No Table Selected");
         selectedTableLabel.setStyle("-fx-text-fill: #D32F2F; -fx-font-weight: bold;");
 
-        ToggleGroup tableGroup = new ToggleGroup();
-
-        // 1. VIP AREA
-        VBox vipArea = new VBox(10);
-        vipArea.getStyleClass().add("area-box");
-        vipArea.setAlignment(Pos.CENTER);
-        Label vipLabel = new Label("VIP AREA");
-        vipLabel.getStyleClass().add("header-label");
-        
-        ToggleButton vip1 = createTableBtn("VIP 1", "table-vip", tableGroup);
-        ToggleButton vip2 = createTableBtn("VIP 2", "table-vip", tableGroup);
-        vipArea.getChildren().addAll(vipLabel, vip1, vip2);
-
-        // 2. CUSTOMER AREA (4 Pax)
-        VBox centerArea = new VBox(15);
-        centerArea.setAlignment(Pos.CENTER);
-        Label centerLabel = new Label("Customer Area (4 Pax)");
-        centerLabel.getStyleClass().add("header-label");
-        ToggleButton t1 = createTableBtn("Table 1", "table-reg-4", tableGroup);
-        ToggleButton t2 = createTableBtn("Table 2", "table-reg-4", tableGroup);
-        ToggleButton t3 = createTableBtn("Table 3", "table-reg-4", tableGroup);
-        centerArea.getChildren().addAll(centerLabel, t1, t2, t3);
-
-        // 3. SIDE AREA (2 Pax)
-        VBox sideArea = new VBox(10);
-        sideArea.setAlignment(Pos.CENTER);
-        Label sideLabel = new Label("Side (2 Pax)");
-        sideLabel.getStyleClass().add("header-label");
-        FlowPane sideFlow = new FlowPane(10, 10);
-        sideFlow.setPrefWrapLength(150);
-        sideFlow.setAlignment(Pos.CENTER);
-        sideFlow.getChildren().addAll(
-            createTableBtn("T4", "table-reg-2", tableGroup), createTableBtn("T5", "table-reg-2", tableGroup),
-            createTableBtn("T6", "table-reg-2", tableGroup), createTableBtn("T7", "table-reg-2", tableGroup),
-            createTableBtn("T8", "table-reg-2", tableGroup)
-        );
-        sideArea.getChildren().addAll(sideLabel, sideFlow);
-
-        HBox mapContainer = new HBox(40);
-        mapContainer.setAlignment(Pos.CENTER);
-        mapContainer.getChildren().addAll(vipArea, centerArea, sideArea);
+        // One tile per table, straight from the TableManager
+        tableMap = new TableMap(cafe.getTableManager());
+        ScrollPane mapScroll = new ScrollPane(tableMap.getView());
+        mapScroll.setFitToWidth(true);
 
         // CONFIRM BUTTON
         Button confirmBtn = new Button("Confirm Reservation");
         confirmBtn.getStyleClass().add("module-button");
         confirmBtn.setDisable(true);
         confirmBtn.setOnAction(e -> {
-            if (currentTableSelection != null) {
-                handleReservation(currentTableSelection, dialog);
+            List<Table> selected = tableMap.getSelected();
+            if (!selected.isEmpty()) {
+                handleReservation(selected, dialog);
             }
         });
 
         // Handle Selection Changes
-        tableGroup.selectedToggleProperty().addListener((obs, oldVal, newVal) -> {
-            if (newVal != null) {
-                ToggleButton btn = (ToggleButton) newVal;
-                currentTableSelection = btn.getText();
-                selectedTableLabel.setText("Selected: " + currentTableSelection);
+        tableMap.setOnSelectionChanged(() -> {
+            List<Table> selected = tableMap.getSelected();
+            if (!selected.isEmpty()) {
+                selectedTableLabel.setText("Selected: " + TableMap.describe(selected) + " (" + TableMap.seatsAt(selected) + " seats)");
                 selectedTableLabel.setStyle("-fx-text-fill: #0077B6; -fx-font-weight: bold;");
                 confirmBtn.setDisable(false);
             } else {
@@ -166,7 +193,14 @@ public class CustomerDashboard {
             }
         });
 
-        dialogLayout.getChildren().addAll(title, mapContainer, selectedTableLabel, confirmBtn);
+        // Re-check which tables are free whenever the request changes
+        datePicker.valueProperty().addListener((obs, oldVal, newVal) -> refreshAvailability());
+        timeBox.valueProperty().addListener((obs, oldVal, newVal) -> refreshAvailability());
+        durationBox.valueProperty().addListener((obs, oldVal, newVal) -> refreshAvailability());
+        partySpinner.valueProperty().addListener((obs, oldVal, newVal) -> refreshAvailability());
+        refreshAvailability();
+
+        dialogLayout.getChildren().addAll(title, whenBox, mapScroll, selectedTableLabel, confirmBtn);
         Scene dialogScene = new Scene(dialogLayout, 950, 650);
         if(getClass().getResource("application.css") != null)
             dialogScene.getStylesheets().add(getClass().getResource("application.css").toExternalForm());
@@ -175,45 +209,104 @@ public class CustomerDashboard {
         dialog.showAndWait();
     }
 
-    private void handleReservation(String tableId, Stage dialog) {
-        Table t = cafe.getTableManager().getTable(tableId);
-        
-        if (t == null) {
-            new Alert(Alert.AlertType.ERROR, "Error finding table.").show();
+    /**
+     * Enables the tables that are free for the chosen time and pre-selects the best fit
+     * for the party (see TableManager.assignSeats); the customer can still change it.
+     */
+    private void refreshAvailability() {
+        LocalDateTime start = requestedStart();
+        Set<Table> free = new HashSet<>();
+        if (start != null) {
+            free.addAll(cafe.getReservations().findFree(start, durationBox.getValue(), 1));
+        }
+        // A booking starting now also needs the table to be empty right now
+        boolean now = startsNow(start);
+        Predicate<Table> available = t -> free.contains(t) && (!now || t.getStatus() == TableStatus.AVAILABLE);
+        tableMap.setAvailable(available);
+        tableMap.select(cafe.getTableManager().assignSeats(partySpinner.getValue(), currentUser.isVIP(), available));
+        if (start != null && cafe.getReservations().hasPassed(start)) {
+            selectedTableLabel.setText("That time has already passed. Please choose a later time.");
+        }
+    }
+
+    /** The chosen date and time, or null if incomplete (see ReservationBook.hasPassed for past times). */
+    private LocalDateTime requestedStart() {
+        if (datePicker.getValue() == null || timeBox.getValue() == null) return null;
+        return LocalDateTime.of(datePicker.getValue(), timeBox.getValue());
+    }
+
+    /** True if the booking begins within the current slot, so the table is held straight away. */
+    private static boolean startsNow(LocalDateTime start) {
+        return start != null && start.isBefore(LocalDateTime.now().plusMinutes(ReservationBook.SLOT_MINUTES));
+    }
+
+    /** The first offered start time that is not yet past (the first of the day after closing). */
+    private static LocalTime nextBookableTime() {
+        LocalTime now = LocalTime.now();
+        for (LocalTime t = FIRST_BOOKING; !t.isAfter(LAST_BOOKING); t = t.plusMinutes(ReservationBook.SLOT_MINUTES)) {
+            if (t.plusMinutes(ReservationBook.SLOT_MINUTES).isAfter(now)) return t;
+        }
+        return FIRST_BOOKING;
+    }
+
+    private void handleReservation(List<Table> tables, Stage dialog) {
+        LocalDateTime start = requestedStart();
+        if (start == null) {
+            new Alert(Alert.AlertType.ERROR, "Please choose a date and time.").show();
+            return;
+        }
+        if (cafe.getReservations().hasPassed(start)) {
+            new Alert(Alert.AlertType.ERROR, start.toLocalTime() + " on " + start.toLocalDate()
+                    + " has already passed. Please choose a later time.").show();
+            refreshAvailability();
             return;
         }
 
-        if (t.getStatus() != TableStatus.AVAILABLE) {
-            new Alert(Alert.AlertType.ERROR, "This table is currently " + t.getStatus() + ". Please choose another.").show();
+        int party = partySpinner.getValue();
+        if (TableMap.seatsAt(tables) < party) {
+            new Alert(Alert.AlertType.ERROR, "The selected tables seat " + TableMap.seatsAt(tables) + ". Please add a table for a party of " + party + ".").show();
             return;
         }
 
-        // Perform Reservation
-        t.reserve(currentUser.getName());
-        cafe.saveAll(); // Save to CSV
+        for (Table t : tables) {
+            if (startsNow(start) && t.getStatus() != TableStatus.AVAILABLE) {
+                new Alert(Alert.AlertType.ERROR, t.getId() + " is currently " + t.getStatus() + ". Please choose another.").show();
+                return;
+            }
+        }
+
+        // Perform Reservation: every table or none, each holding its share of the party
+        ReservationBook book = cafe.getReservations();
+        List<Reservation> bookings = new ArrayList<>();
+        int unseated = party;
+        for (Table t : tables) {
+            int share = Math.max(1, Math.min(unseated, t.getCapacity()));
+            Reservation booking = book.book(t, currentUser, start, durationBox.getValue(), share);
+            if (booking == null) {
+                for (Reservation done : bookings) book.cancel(done);
+                new Alert(Alert.AlertType.ERROR, t.getId() + " is not free for that time. Please choose another.").show();
+                refreshAvailability();
+                return;
+            }
+            bookings.add(booking);
+            unseated -= share;
+        }
+        if (startsNow(start)) {
+            for (Table t : tables) {
+                t.reserve(currentUser.getName());
+                cafe.getJournal().logTable(t);
+            }
+            cafe.commit(); // Append to the transaction journal
+        }
 
         Alert success = new Alert(Alert.AlertType.INFORMATION);
         success.setTitle("Success");
         success.setHeaderText("Reservation Confirmed!");
-        success.setContentText("You have successfully reserved " + tableId + ".");
+        success.setContentText("You have successfully reserved " + TableMap.describe(tables) + " for " + party
+                + " on " + start.toLocalDate() + " at " + start.toLocalTime()
+                + " (" + durationBox.getValue() + " minutes).");
         success.showAndWait();
         
         dialog.close();
     }
-
-    private ToggleButton createTableBtn(String name, String cssClass, ToggleGroup group) {
-        ToggleButton btn = new ToggleButton(name);
-        btn.getStyleClass().add("table-btn");
-        btn.getStyleClass().add(cssClass);
-        btn.setToggleGroup(group);
-        
-        // Check status to visually disable occupied tables
-        Table t = cafe.getTableManager().getTable(name);
-        if (t != null && t.getStatus() != TableStatus.AVAILABLE) {
-            btn.setDisable(true);
-            btn.setStyle("-fx-background-color: #E0E0E0; -fx-text-fill: #999; -fx-border-color: #AAA;"); // Greyed out
-        }
-        
-        return btn;
-    }
 }
\ No newline at end of file
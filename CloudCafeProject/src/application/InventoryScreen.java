@@ -1,9 +1,10 @@
 package application;
 
+import application.model.Cafe;
+import application.model.ChangeBus;
 import application.model.Ingredient;
 import application.model.Inventory;
-import javafx.application.Platform; // Import Platform
-import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.binding.Bindings;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -13,15 +14,21 @@ import javafx.scene.control.*;
 import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 
 import java.util.List;
 
 /**
  * Handles the GUI and logic for Inventory Management (Stock In/Out, Add Item).
  * This was previously the Main.java class.
+ *
+ * Works on the Cafe's own Inventory, so sales rung up at a register show here as they
+ * happen: the stock and status cells are bound to each ingredient, and the low-stock
+ * alert is recomputed from the Cafe's ChangeBus.
  */
 public class InventoryScreen { 
 
+    private final Cafe cafe;
     private Inventory inventory; 
     private ObservableList<Ingredient> inventoryData;
     private Label alertLabel;
@@ -34,10 +41,14 @@ public class InventoryScreen {
     private TextField newStockField;
     private TextField newReorderField;
 
+    public InventoryScreen(Cafe cafe) {
+        this.cafe = cafe;
+    }
+
     // Use a non-Application start method, accepting a Stage
     public void start(Stage primaryStage) { 
         // 1. Initialize Model and Data
-        this.inventory = new Inventory(); 
+        this.inventory = cafe.getInventory(); 
         this.inventoryData = FXCollections.observableArrayList(inventory.getStock().values());
 
         // 2. Build the Main Layout
@@ -88,8 +99,9 @@ public class InventoryScreen {
         primaryStage.setScene(scene);
         primaryStage.show();
         
-        // Ensure data is saved when the window is closed
-        primaryStage.setOnCloseRequest(e -> inventory.saveInventory());
+        // Changes made at a register (or another screen) while this one is open
+        Runnable unsubscribe = cafe.getEvents().subscribe(ChangeBus.STOCK, changed -> updateAlerts());
+        primaryStage.addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> unsubscribe.run());
     }
     
     // --- GUI Component Building Methods (Same as before) ---
@@ -113,9 +125,11 @@ public class InventoryScreen {
         reorderCol.setCellValueFactory(new PropertyValueFactory<>("reorderPoint"));
 
         TableColumn<Ingredient, String> statusCol = new TableColumn<>("Status");
-        statusCol.setCellValueFactory(cellData -> 
-            new SimpleStringProperty(cellData.getValue().needsReorder() ? "⚠️ LOW STOCK" : "✅ OK")
-        );
+        statusCol.setCellValueFactory(cellData -> {
+            Ingredient item = cellData.getValue();
+            return Bindings.createStringBinding(() -> item.needsReorder() ? "⚠️ LOW STOCK" : "✅ OK",
+                    item.stockLevelProperty());
+        });
         statusCol.setPrefWidth(150);
 
         table.getColumns().addAll(nameCol, stockCol, unitCol, reorderCol, statusCol);
@@ -196,9 +210,8 @@ public class InventoryScreen {
             }
             
             selectedItem.addStock(amount); 
-            inventory.saveInventory();
-            inventoryTable.refresh(); 
-            updateAlerts();
+            cafe.getJournal().logStock(selectedItem, amount);
+            cafe.commit();
             replenishAmountField.clear();
             
             showAlert(Alert.AlertType.INFORMATION, "Success", "Stock Updated", 
@@ -227,9 +240,8 @@ public class InventoryScreen {
             boolean success = selectedItem.deductStock(amount); 
             
             if (success) {
-                inventory.saveInventory();
-                inventoryTable.refresh(); 
-                updateAlerts();
+                cafe.getJournal().logStock(selectedItem, -amount);
+                cafe.commit();
                 replenishAmountField.clear();
                 
                 showAlert(Alert.AlertType.INFORMATION, "Success", "Stock Deducted", 
@@ -270,7 +282,7 @@ public class InventoryScreen {
             Ingredient newIngredient = new Ingredient(name, stock, unit, reorder);
             
             inventory.addIngredient(newIngredient);
-            inventory.saveInventory();
+            cafe.saveAll(); // The journal only records changes to existing rows
 
             inventoryData.add(newIngredient);
             updateAlerts();
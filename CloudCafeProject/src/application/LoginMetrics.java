@@ -0,0 +1,41 @@
+package application;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Time from pressing "Log In" to the dashboard being on screen, kept per role so slow
+ * logins during shift changes can be told apart from a slow dashboard. Kept in memory
+ * for the session and shown on the manager dashboard (FX thread only).
+ */
+final class LoginMetrics {
+    private static final class Stats {
+        int count;
+        long totalMs;
+        long maxMs;
+    }
+
+    private final Map<String, Stats> byRole = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+
+    /** Records one login that started at the given System.nanoTime(). */
+    void record(String role, long startNanos) {
+        long ms = (System.nanoTime() - startNanos) / 1_000_000;
+        Stats s = byRole.computeIfAbsent(role, k -> new Stats());
+        s.count++;
+        s.totalMs += ms;
+        s.maxMs = Math.max(s.maxMs, ms);
+    }
+
+    /** One line per role: average and slowest time to dashboard, and the number of logins. */
+    String summary() {
+        if (byRole.isEmpty()) return "Time to dashboard: no logins yet";
+        StringBuilder sb = new StringBuilder("Time to dashboard:");
+        for (Map.Entry<String, Stats> e : byRole.entrySet()) {
+            Stats s = e.getValue();
+            sb.append("\n").append(e.getKey()).append(": avg ").append(s.totalMs / s.count)
+              .append(" ms, max ").append(s.maxMs).append(" ms over ").append(s.count)
+              .append(s.count == 1 ? " login" : " logins");
+        }
+        return sb.toString();
+    }
+}
\ No newline at end of file
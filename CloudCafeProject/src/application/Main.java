@@ -1,5 +1,6 @@
 package application;
 
+import application.model.PersistenceService;
 import javafx.application.Application;
 import javafx.stage.Stage;
 
@@ -12,6 +13,12 @@ public class Main extends Application {
         welcomeScreen.show(primaryStage);
     }
 
+    @Override
+    public void stop() {
+        // Let the background writer finish any queued saves before the JVM exits
+        PersistenceService.getInstance().shutdown();
+    }
+
     public static void main(String[] args) {
         launch(args); 
     }
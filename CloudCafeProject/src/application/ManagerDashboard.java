@@ -1,7 +1,11 @@
 package application;
 
 import application.model.Cafe;
+import application.model.DwellHistogram;
+import application.model.TableManager;
+import application.model.TurnoverStats;
 import application.model.User;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -9,17 +13,31 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
+import javafx.stage.WindowEvent;
 
 public class ManagerDashboard {
+    // Hours covered by the turnover rate shown on the dashboard
+    private static final int TURNOVER_HOURS = 3;
+    private static final String SPARK_BARS = "▁▂▃▄▅▆▇█";
+
     private Cafe cafe;
     private User currentUser;
+    private final LoginMetrics loginMetrics;
+    private Runnable stopTurnover = () -> {};
 
-    public ManagerDashboard(Cafe cafe, User user) {
+    public ManagerDashboard(Cafe cafe, User user, LoginMetrics loginMetrics) {
         this.cafe = cafe;
         this.currentUser = user;
+        this.loginMetrics = loginMetrics;
     }
 
     public void start(Stage stage, Stage loginStage) {
+        prepare(stage, loginStage);
+        stage.show();
+    }
+
+    /** Builds the dashboard into the stage without showing it (used to pre-warm it during login). */
+    public void prepare(Stage stage, Stage loginStage) {
         VBox root = new VBox(20);
         root.setPadding(new Insets(40));
         root.setAlignment(Pos.CENTER);
@@ -29,12 +47,30 @@ public class ManagerDashboard {
         welcome.getStyleClass().add("title-label");
         welcome.setStyle("-fx-font-size: 24px; -fx-text-alignment: center;");
 
+        // Table turnover, kept current while the dashboard is showing
+        Label turnoverLbl = new Label("Table turnover: loading...");
+        turnoverLbl.getStyleClass().add("sub-label");
+        // Login times, including this login (recorded by the stage's own onShown handler,
+        // which runs after this one; hence the refresh is deferred)
+        Label loginLbl = new Label();
+        loginLbl.getStyleClass().add("sub-label");
+        stage.addEventHandler(WindowEvent.WINDOW_SHOWN, e -> cafe.getTableManagerAsync().thenAccept(tm -> Platform.runLater(() -> {
+            if (!stage.isShowing()) return;
+            loginLbl.setText(loginMetrics.summary());
+            showTurnover(turnoverLbl, tm);
+            stopTurnover = tm.addStatusListener(changed -> showTurnover(turnoverLbl, tm));
+        })));
+        stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> {
+            stopTurnover.run();
+            stopTurnover = () -> {};
+        });
+
         // 1. Inventory
         Button inventoryBtn = new Button("📦 Inventory Management");
         inventoryBtn.getStyleClass().add("module-button");
         inventoryBtn.setOnAction(e -> {
             stage.hide();
-            InventoryScreen is = new InventoryScreen(); 
+            InventoryScreen is = new InventoryScreen(cafe); 
             Stage s = new Stage();
             is.start(s);
             s.setOnHidden(ev -> stage.show());
@@ -73,6 +109,17 @@ public class ManagerDashboard {
             s.setOnHidden(ev -> stage.show());
         });
 
+        // 5. Menu & Servings
+        Button menuBtn = new Button("☕ Menu & Servings");
+        menuBtn.getStyleClass().add("module-button");
+        menuBtn.setOnAction(e -> {
+            stage.hide();
+            MenuScreen ms = new MenuScreen(cafe);
+            Stage s = new Stage();
+            ms.start(s);
+            s.setOnHidden(ev -> stage.show());
+        });
+
         // Logout
         Button logoutBtn = new Button("🔒 Logout");
         logoutBtn.getStyleClass().add("exit-button");
@@ -82,7 +129,7 @@ public class ManagerDashboard {
             loginStage.show();
         });
 
-        root.getChildren().addAll(welcome, inventoryBtn, cashBtn, communityBtn, tablesBtn, logoutBtn);
+        root.getChildren().addAll(welcome, turnoverLbl, loginLbl, inventoryBtn, cashBtn, communityBtn, tablesBtn, menuBtn, logoutBtn);
         
         Scene scene = new Scene(root, 1000, 700);
         if(getClass().getResource("application.css") != null)
@@ -90,6 +137,39 @@ public class ManagerDashboard {
         
         stage.setScene(scene);
         stage.setTitle("Manager Dashboard");
-        stage.show();
+    }
+
+    private void showTurnover(Label label, TableManager tableManager) {
+        TurnoverStats stats = tableManager.getTurnover();
+        long now = System.currentTimeMillis();
+        int[] perHour = stats.getSeatedPerHour(now);
+        int recent = 0, peak = 0;
+        for (int i = 0; i < perHour.length; i++) {
+            if (i >= perHour.length - TURNOVER_HOURS) recent += perHour[i];
+            peak = Math.max(peak, perHour[i]);
+        }
+        double perTable = (double) recent / TURNOVER_HOURS / Math.max(1, tableManager.getTables().size());
+
+        StringBuilder spark = new StringBuilder();
+        for (int seated : perHour) {
+            spark.append(SPARK_BARS.charAt(peak == 0 ? 0 : seated * (SPARK_BARS.length() - 1) / peak));
+        }
+
+        DwellHistogram dwell = stats.getDwell(TurnoverStats.HOURS, now);
+        String dwellText = dwell.getCount() == 0 ? "no seatings finished yet"
+                : dwell.getCount() + " seatings, median " + formatDuration(dwell.valueAtPercentile(50))
+                + " · p90 " + formatDuration(dwell.valueAtPercentile(90))
+                + " · longest " + formatDuration(dwell.getMaxSeconds());
+
+        label.setText(String.format("Seated: %d this hour, %.2f per table per hour over the last %d h%n"
+                + "Dwell (last %d h): %s%n"
+                + "Seated per hour, last %d h: %s (peak %d)",
+                perHour[perHour.length - 1], perTable, TURNOVER_HOURS,
+                TurnoverStats.HOURS, dwellText, TurnoverStats.HOURS, spark, peak));
+    }
+
+    private static String formatDuration(long seconds) {
+        long minutes = (seconds + 30) / 60;
+        return minutes < 60 ? minutes + " min" : minutes / 60 + " h " + minutes % 60 + " min";
     }
 }
\ No newline at end of file
@@ -0,0 +1,151 @@
+package application;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Consumer;
+
+import application.model.Cafe;
+import application.model.Menu;
+import application.model.MenuItem;
+import application.model.Money;
+import javafx.scene.Node;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.VBox;
+
+/**
+ * The order screen's grid of menu buttons, grouped by Menu category.
+ *
+ * Built grids are pooled per Cafe: a New Order screen takes an idle grid with open() and
+ * hands it back with dispose(), so opening the screen again creates no buttons or
+ * bindings. Each open screen holds a grid of its own, so several registers can be open at
+ * once. A grid reused after the menu changed only replaces the buttons of the items
+ * changed since its version (see Menu.getChangedSince). Availability needs no refresh:
+ * each button stays bound to its item's available property while the grid is pooled.
+ *
+ * FX thread only.
+ */
+final class MenuGrid {
+    // Idle grids per Cafe; a grid refers only to the Menu, so the entry goes with its Cafe
+    private static final Map<Cafe, Deque<MenuGrid>> POOL = new WeakHashMap<>();
+    private static final int MAX_IDLE = 4; // Grids kept beyond this are released
+
+    private final Menu menu;
+    private final Deque<MenuGrid> pool;
+    private final VBox content = new VBox(25);
+    private final ScrollPane view = new ScrollPane(content);
+    private final Map<String, Label> headers = new HashMap<>();
+    private final Map<String, FlowPane> sections = new HashMap<>(); // Category -> its buttons
+    private final Map<String, Button> buttons = new HashMap<>();    // Item name -> button
+    private int builtVersion;
+    private Consumer<MenuItem> onSelect; // The screen using the grid; null while pooled
+
+    /** A grid for one order screen, sending presses to onSelect; pooled if one is idle. */
+    static MenuGrid open(Cafe cafe, Consumer<MenuItem> onSelect) {
+        Deque<MenuGrid> idle = POOL.computeIfAbsent(cafe, c -> new ArrayDeque<>());
+        MenuGrid grid = idle.poll();
+        if (grid == null) grid = new MenuGrid(cafe.getMenu(), idle);
+        else grid.update();
+        grid.onSelect = onSelect;
+        grid.view.setVvalue(0);
+        return grid;
+    }
+
+    private MenuGrid(Menu menu, Deque<MenuGrid> pool) {
+        this.menu = menu;
+        this.pool = pool;
+        view.setFitToWidth(true);
+        view.getStyleClass().add("menu-grid");
+
+        for (String category : menu.getCategories()) {
+            FlowPane pane = section(category);
+            for (MenuItem item : menu.getItemsInCategory(category)) {
+                pane.getChildren().add(createButton(item));
+            }
+        }
+        layOut();
+        builtVersion = menu.getVersion();
+    }
+
+    /** The scrollable grid. */
+    Node getView() { return view; }
+
+    /** Returns the grid to the pool for the next order screen; call when the screen closes. */
+    void dispose() {
+        if (onSelect == null) return;
+        onSelect = null;
+        if (pool.size() < MAX_IDLE) {
+            pool.push(this);
+            return;
+        }
+        for (Button btn : buttons.values()) btn.disableProperty().unbind();
+    }
+
+    /** Brings a pooled grid up to the current menu version. */
+    private void update() {
+        if (builtVersion == menu.getVersion()) return;
+        Map<String, FlowPane> touched = new LinkedHashMap<>();
+        for (MenuItem item : menu.getChangedSince(builtVersion)) {
+            Button old = buttons.get(item.getName());
+            if (old != null) {
+                old.disableProperty().unbind();
+                String oldCategory = ((MenuItem) old.getUserData()).getCategory();
+                touched.put(oldCategory, sections.get(oldCategory));
+            }
+            createButton(item);
+            touched.put(item.getCategory(), section(item.getCategory()));
+        }
+        // Only the touched sections are refilled, from buttons that mostly exist already
+        for (Map.Entry<String, FlowPane> entry : touched.entrySet()) {
+            List<MenuItem> items = menu.getItemsInCategory(entry.getKey());
+            entry.getValue().getChildren().clear();
+            for (MenuItem item : items) entry.getValue().getChildren().add(buttons.get(item.getName()));
+            if (items.isEmpty()) {
+                sections.remove(entry.getKey());
+                headers.remove(entry.getKey());
+            }
+        }
+        layOut();
+        builtVersion = menu.getVersion();
+    }
+
+    /** The pane of a category, created (not yet laid out) if new. */
+    private FlowPane section(String category) {
+        return sections.computeIfAbsent(category, c -> {
+            FlowPane catGrid = new FlowPane();
+            catGrid.setHgap(12);
+            catGrid.setVgap(12);
+            Label catHeader = new Label(c);
+            catHeader.getStyleClass().add("menu-category-label");
+            headers.put(c, catHeader);
+            return catGrid;
+        });
+    }
+
+    /** Puts the sections in menu category order. */
+    private void layOut() {
+        content.getChildren().clear();
+        for (String category : menu.getCategories()) {
+            content.getChildren().addAll(headers.get(category), sections.get(category));
+        }
+    }
+
+    private Button createButton(MenuItem item) {
+        Button btn = new Button(item.getName() + "\n" + Money.format(item.getPriceCentavos()));
+        btn.setPrefSize(140, 90);
+        btn.getStyleClass().add("coffee-button");
+        btn.setUserData(item);
+        btn.setOnAction(e -> onSelect.accept(item));
+        // Greys out as soon as any ingredient of this item runs short
+        btn.disableProperty().bind(item.availableProperty().not());
+        buttons.put(item.getName(), btn);
+        return btn;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package application;
+
+import application.model.Cafe;
+import application.model.MenuItem;
+import javafx.collections.FXCollections;
+import javafx.geometry.Insets;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.control.cell.PropertyValueFactory;
+import javafx.scene.layout.VBox;
+import javafx.stage.Stage;
+
+/**
+ * Read-only view of the menu for managers. The "Can Make" column is bound to each item's
+ * max-servings property, so it follows stock changes without reloading the table.
+ */
+public class MenuScreen {
+
+    private Cafe cafe;
+
+    public MenuScreen(Cafe cafe) {
+        this.cafe = cafe;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void start(Stage stage) {
+        VBox root = new VBox(20);
+        root.setPadding(new Insets(20));
+        root.getStyleClass().add("root-pane");
+
+        Label title = new Label("☕ Menu & Servings Remaining");
+        title.getStyleClass().add("title-label");
+
+        TableView<MenuItem> menuTable = new TableView<>();
+        menuTable.setItems(FXCollections.observableArrayList(cafe.getMenu().getItems().values()));
+        menuTable.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+
+        TableColumn<MenuItem, String> nameCol = new TableColumn<>("Item");
+        nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
+
+        TableColumn<MenuItem, String> categoryCol = new TableColumn<>("Category");
+        categoryCol.setCellValueFactory(new PropertyValueFactory<>("category"));
+
+        TableColumn<MenuItem, Double> priceCol = new TableColumn<>("Price (₱)");
+        priceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
+
+        TableColumn<MenuItem, Integer> servingsCol = new TableColumn<>("Can Make");
+        servingsCol.setCellValueFactory(new PropertyValueFactory<>("maxServings"));
+
+        menuTable.getColumns().addAll(nameCol, categoryCol, priceCol, servingsCol);
+
+        Button backBtn = new Button("⬅ Back");
+        backBtn.setOnAction(e -> stage.close());
+
+        root.getChildren().addAll(title, menuTable, backBtn);
+
+        Scene scene = new Scene(root, 800, 500);
+        if(getClass().getResource("application.css") != null)
+             scene.getStylesheets().add(getClass().getResource("application.css").toExternalForm());
+
+        stage.setScene(scene);
+        stage.setTitle("Menu");
+        stage.show();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,127 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import application.model.Table;
+import application.model.TableManager;
+import javafx.geometry.Pos;
+import javafx.scene.Node;
+import javafx.scene.control.ButtonBase;
+import javafx.scene.control.Label;
+import javafx.scene.control.ToggleButton;
+import javafx.scene.layout.FlowPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.VBox;
+
+/**
+ * A floor map generated from the TableManager: one tile per table, grouped by area in
+ * floor order. The static helpers lay out any kind of tile (the monitoring screen uses
+ * plain buttons); an instance is the selectable map of the seat dialogs, where several
+ * toggles can be on at once so a party can be seated across adjacent tables.
+ */
+final class TableMap {
+    private static final String UNAVAILABLE_STYLE = "-fx-background-color: #E0E0E0; -fx-text-fill: #999; -fx-border-color: #AAA;"; // Greyed out
+
+    private final Map<Table, ToggleButton> tiles = new LinkedHashMap<>();
+    private final Node view;
+    private Runnable onSelectionChanged = () -> {};
+
+    TableMap(TableManager tableManager) {
+        view = layout(tableManager.getFloorOrder(), table -> {
+            ToggleButton btn = new ToggleButton(table.getId());
+            styleTile(btn, table);
+            btn.selectedProperty().addListener((obs, oldVal, newVal) -> onSelectionChanged.run());
+            tiles.put(table, btn);
+            return btn;
+        });
+    }
+
+    /** Lays the tables out as one column per area, each tile made by the factory. */
+    static HBox layout(List<Table> floor, Function<Table, ? extends Node> tileFactory) {
+        Map<String, FlowPane> areas = new LinkedHashMap<>();
+        HBox mapContainer = new HBox(40);
+        mapContainer.setAlignment(Pos.CENTER);
+        for (Table table : floor) {
+            FlowPane flow = areas.get(table.getArea());
+            if (flow == null) {
+                flow = new FlowPane(10, 10);
+                flow.setPrefWrapLength(150);
+                flow.setAlignment(Pos.CENTER);
+                areas.put(table.getArea(), flow);
+
+                VBox area = new VBox(15);
+                area.setAlignment(Pos.TOP_CENTER);
+                if (table.isVip()) area.getStyleClass().add("area-box");
+                Label areaLabel = new Label(table.getArea());
+                areaLabel.getStyleClass().add("header-label");
+                area.getChildren().addAll(areaLabel, flow);
+                mapContainer.getChildren().add(area);
+            }
+            flow.getChildren().add(tileFactory.apply(table));
+        }
+        return mapContainer;
+    }
+
+    /** Gives a tile the shape of its kind of table. */
+    static void styleTile(ButtonBase tile, Table table) {
+        if (table.isVip()) tile.getStyleClass().add("table-vip");
+        else if (table.getCapacity() >= 4) tile.getStyleClass().add("table-reg-4");
+        else tile.getStyleClass().add("table-reg-2");
+        tile.getStyleClass().add("table-btn"); // Base style
+    }
+
+    Node getView() { return view; }
+
+    void setOnSelectionChanged(Runnable onSelectionChanged) {
+        this.onSelectionChanged = onSelectionChanged;
+    }
+
+    /** Enables the tables that pass the test and greys out (and deselects) the rest. */
+    void setAvailable(Predicate<Table> available) {
+        for (Map.Entry<Table, ToggleButton> tile : tiles.entrySet()) {
+            boolean on = available.test(tile.getKey());
+            ToggleButton btn = tile.getValue();
+            if (!on) btn.setSelected(false);
+            btn.setDisable(!on);
+            btn.setStyle(on ? "" : UNAVAILABLE_STYLE);
+        }
+    }
+
+    /** Selects exactly the given tables. */
+    void select(List<Table> tables) {
+        for (Map.Entry<Table, ToggleButton> tile : tiles.entrySet()) {
+            tile.getValue().setSelected(tables.contains(tile.getKey()));
+        }
+    }
+
+    /** The selected tables in floor order. */
+    List<Table> getSelected() {
+        List<Table> selected = new ArrayList<>();
+        for (Map.Entry<Table, ToggleButton> tile : tiles.entrySet()) {
+            if (tile.getValue().isSelected()) selected.add(tile.getKey());
+        }
+        return selected;
+    }
+
+    /** "Table 1 + Table 2" style name for one or more tables. */
+    static String describe(List<Table> tables) {
+        StringBuilder sb = new StringBuilder();
+        for (Table t : tables) {
+            if (sb.length() > 0) sb.append(" + ");
+            sb.append(t.getId());
+        }
+        return sb.toString();
+    }
+
+    /** Total seats at the given tables. */
+    static int seatsAt(List<Table> tables) {
+        int seats = 0;
+        for (Table t : tables) seats += t.getCapacity();
+        return seats;
+    }
+}
\ No newline at end of file
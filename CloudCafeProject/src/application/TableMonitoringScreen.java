@@ -1,16 +1,58 @@
 package application;
 
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
 import application.model.*;
+import javafx.animation.AnimationTimer;
+import javafx.css.PseudoClass;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
-
+import javafx.stage.WindowEvent;
+
+/**
+ * Live floor map. The tiles are generated from the TableManager, one per table, so the
+ * map grows with the floor. Status changes made anywhere (this screen, a register, a
+ * reservation) arrive from TableManager.addStatusListener; they are queued and painted
+ * at most FRAME_RATE times a second, touching only the tiles whose status actually
+ * changed. A table that changes several times within one frame is painted once.
+ */
 public class TableMonitoringScreen {
+    private static final int FRAME_RATE = 30;
+    private static final long FRAME_NANOS = 1_000_000_000L / FRAME_RATE;
+
+    private static final PseudoClass AVAILABLE = PseudoClass.getPseudoClass("available");
+    private static final PseudoClass OCCUPIED = PseudoClass.getPseudoClass("occupied");
+    private static final PseudoClass RESERVED = PseudoClass.getPseudoClass("reserved");
+
+    /** A table's button and the status it currently shows. */
+    private static final class Tile {
+        final Button button;
+        TableStatus shown;
+
+        Tile(Button button) { this.button = button; }
+    }
 
     private Cafe cafe;
+    private final Map<Table, Tile> tiles = new HashMap<>();
+    // Tables reported since the last frame, painted by 'painter'
+    private final Set<Table> pending = new LinkedHashSet<>();
+    private final AnimationTimer painter = new AnimationTimer() {
+        private long lastFrame;
+
+        @Override
+        public void handle(long now) {
+            if (now - lastFrame < FRAME_NANOS) return;
+            lastFrame = now;
+            paintPending();
+        }
+    };
 
     public TableMonitoringScreen(Cafe cafe) {
         this.cafe = cafe;
@@ -44,47 +86,16 @@ public class TableMonitoringScreen {
         );
 
         // --- MAP AREA ---
-        HBox mapContainer = new HBox(40);
-        mapContainer.setAlignment(Pos.CENTER);
+        // One column per area: VIP, then each seat count from largest to smallest
+        TableManager tableManager = cafe.getTableManager();
+        HBox mapContainer = TableMap.layout(tableManager.getFloorOrder(), this::createTableButton);
         mapContainer.setPadding(new Insets(30));
 
-        // 1. VIP AREA
-        VBox vipArea = new VBox(15);
-        vipArea.getStyleClass().add("area-box");
-        vipArea.setAlignment(Pos.CENTER);
-        vipArea.getChildren().add(new Label("VIP AREA"));
-        vipArea.getChildren().addAll(
-            createTableButton("VIP 1"), 
-            createTableButton("VIP 2")
-        );
+        ScrollPane mapScroll = new ScrollPane(mapContainer);
+        mapScroll.setFitToWidth(true);
+        VBox.setVgrow(mapScroll, Priority.ALWAYS);
 
-        // 2. CENTER AREA
-        VBox centerArea = new VBox(15);
-        centerArea.setAlignment(Pos.CENTER);
-        centerArea.getChildren().add(new Label("Customer Area (4 Pax)"));
-        centerArea.getChildren().addAll(
-            createTableButton("Table 1"),
-            createTableButton("Table 2"),
-            createTableButton("Table 3")
-        );
-
-        // 3. SIDE AREA
-        VBox sideArea = new VBox(15);
-        sideArea.setAlignment(Pos.CENTER);
-        sideArea.getChildren().add(new Label("Side (2 Pax)"));
-        
-        FlowPane sideFlow = new FlowPane(10, 10);
-        sideFlow.setPrefWrapLength(150);
-        sideFlow.setAlignment(Pos.CENTER);
-        sideFlow.getChildren().addAll(
-            createTableButton("T4"), createTableButton("T5"),
-            createTableButton("T6"), createTableButton("T7"), createTableButton("T8")
-        );
-        sideArea.getChildren().add(sideFlow);
-
-        mapContainer.getChildren().addAll(vipArea, centerArea, sideArea);
-
-        root.getChildren().addAll(headerBox, legend, mapContainer);
+        root.getChildren().addAll(headerBox, legend, mapScroll);
 
         Scene scene = new Scene(root, 1000, 700);
         if(getClass().getResource("application.css") != null)
@@ -93,6 +104,15 @@ public class TableMonitoringScreen {
         stage.setScene(scene);
         stage.setTitle("Table Monitoring - Milestone 3");
         stage.show();
+
+        Runnable unsubscribe = tableManager.addStatusListener(changed -> {
+            pending.addAll(changed);
+            painter.start();
+        });
+        stage.addEventHandler(WindowEvent.WINDOW_HIDDEN, e -> {
+            unsubscribe.run();
+            painter.stop();
+        });
     }
 
     private HBox createLegendItem(String name, String colorHex) {
@@ -107,38 +127,39 @@ public class TableMonitoringScreen {
         return box;
     }
 
-    private Button createTableButton(String tableId) {
-        Table table = cafe.getTableManager().getTable(tableId);
-        Button btn = new Button(tableId);
-        
-        // Apply shape class based on ID
-        if (tableId.startsWith("VIP")) btn.getStyleClass().add("table-vip");
-        else if (tableId.startsWith("T") && tableId.length() == 2) btn.getStyleClass().add("table-reg-2");
-        else btn.getStyleClass().add("table-reg-4");
-
-        btn.getStyleClass().add("table-btn"); // Base style
+    private Button createTableButton(Table table) {
+        Button btn = new Button(table.getId());
+        TableMap.styleTile(btn, table); // Shape follows the kind of table
 
-        // Initial Color Set
-        updateButtonColor(btn, table.getStatus());
+        Tile tile = new Tile(btn);
+        tiles.put(table, tile);
+        paint(tile, table.getStatus());
 
         // Action: Show Action Dialog
-        btn.setOnAction(e -> showActionDialog(table, btn));
+        btn.setOnAction(e -> showActionDialog(table));
 
         return btn;
     }
 
-    private void updateButtonColor(Button btn, TableStatus status) {
-        String color = "";
-        switch (status) {
-            case AVAILABLE: color = "#4CAF50"; break; // Green
-            case OCCUPIED:  color = "#F44336"; break; // Red
-            case RESERVED:  color = "#FF9800"; break; // Orange
+    /** Paints the tiles of every table reported since the last frame (FX thread). */
+    private void paintPending() {
+        for (Table table : pending) {
+            Tile tile = tiles.get(table);
+            if (tile != null && tile.shown != table.getStatus()) paint(tile, table.getStatus());
         }
-        // We use setStyle to override the CSS background color dynamically
-        btn.setStyle("-fx-background-color: " + color + ";");
+        pending.clear();
+        painter.stop(); // Restarted by the next change
+    }
+
+    private void paint(Tile tile, TableStatus status) {
+        // Status colours are CSS pseudo-classes (.table-btn:occupied ...), not inline styles
+        tile.button.pseudoClassStateChanged(AVAILABLE, status == TableStatus.AVAILABLE);
+        tile.button.pseudoClassStateChanged(OCCUPIED, status == TableStatus.OCCUPIED);
+        tile.button.pseudoClassStateChanged(RESERVED, status == TableStatus.RESERVED);
+        tile.shown = status;
     }
 
-    private void showActionDialog(Table table, Button btn) {
+    private void showActionDialog(Table table) {
         Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
         alert.setTitle("Manage " + table.getId());
         alert.setHeaderText("Status: " + table.getStatus() + "\nCustomer: " + table.getCurrentCustomer());
@@ -156,6 +177,8 @@ public class TableMonitoringScreen {
         }
 
         alert.showAndWait().ifPresent(type -> {
+            TableStatus statusBefore = table.getStatus();
+            String customerBefore = table.getCurrentCustomer();
             if (type == btnOccupy) {
                 table.occupy("Walk-in");
             } else if (type == btnReserve) {
@@ -166,9 +189,10 @@ public class TableMonitoringScreen {
             } else if (type == btnFree) {
                 table.free();
             }
-            // Refresh visual
-            updateButtonColor(btn, table.getStatus());
-            cafe.saveAll();
+            // Cancel, or a dismissed name prompt, leaves nothing to journal
+            if (table.getStatus() == statusBefore && table.getCurrentCustomer().equals(customerBefore)) return;
+            cafe.getJournal().logTable(table);
+            cafe.commit();
         });
     }
 }
\ No newline at end of file
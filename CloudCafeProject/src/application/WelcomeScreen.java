@@ -2,6 +2,9 @@ package application;
 
 import application.model.Cafe;
 import application.model.User;
+import application.model.UserManager;
+import javafx.application.Platform;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -15,6 +18,11 @@ import javafx.stage.Stage;
 public class WelcomeScreen { 
     
     private Cafe cafe;
+    private final LoginMetrics loginMetrics = new LoginMetrics();
+
+    // Dashboard built for the user whose password is being checked, not shown yet
+    private User prewarmedUser;
+    private Stage prewarmedStage;
 
     public WelcomeScreen() {
         this.cafe = new Cafe(); 
@@ -73,6 +81,12 @@ public class WelcomeScreen {
         Label statusLabel = new Label();
         statusLabel.setStyle("-fx-text-fill: #D32F2F; -fx-font-size: 12px;");
 
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setMaxWidth(Double.MAX_VALUE);
+        progressBar.setVisible(false);
+        Label progressLabel = new Label();
+        progressLabel.getStyleClass().add("sub-label");
+
         // --- NEW: Make Account Link ---
         Hyperlink createAccLink = new Hyperlink("Make A New Account");
         createAccLink.getStyleClass().add("create-acc-link"); // We will add this style
@@ -81,13 +95,59 @@ public class WelcomeScreen {
         loginButton.setOnAction(e -> {
             String id = idField.getText().trim();
             String pass = passField.getText().trim();
-            User user = cafe.getUserManager().authenticate(id, pass);
-            
-            if (user != null) {
-                routeUser(primaryStage, user);
-            } else {
-                statusLabel.setText("Invalid credentials.");
-            }
+            long started = System.nanoTime();
+
+            // Waiting for the user store and hashing the password both happen off the FX thread
+            Task<User> login = new Task<User>() {
+                @Override
+                protected User call() {
+                    updateProgress(0, 3);
+                    updateMessage("Loading accounts...");
+                    UserManager users = cafe.getUserManagerAsync().join();
+                    updateProgress(1, 3);
+
+                    // Build the user's dashboard while the password is being checked, but only
+                    // once the cheap checks pass: a locked-out ID is rejected without hashing,
+                    // and must not cost a dashboard build (or show a delay) per guess
+                    User candidate = users.getUser(id);
+                    if (candidate != null && users.getLockoutSeconds(id) == 0) {
+                        Platform.runLater(() -> prewarm(primaryStage, candidate));
+                    }
+                    updateMessage("Checking password...");
+                    User user = users.authenticate(id, pass);
+                    updateProgress(2, 3);
+                    updateMessage("Opening dashboard...");
+                    return user;
+                }
+            };
+
+            loginButton.setDisable(true);
+            statusLabel.setText("");
+            progressBar.progressProperty().bind(login.progressProperty());
+            progressLabel.textProperty().bind(login.messageProperty());
+            progressBar.setVisible(true);
+
+            login.setOnSucceeded(ev -> {
+                endLogin(loginButton, progressBar, progressLabel);
+                User user = login.getValue();
+                if (user != null) {
+                    routeUser(primaryStage, user, started);
+                } else {
+                    discardPrewarmed();
+                    long wait = cafe.getUserManager().getLockoutSeconds(id);
+                    statusLabel.setText(wait > 0 ? "Too many attempts. Try again in " + wait + "s." : "Invalid credentials.");
+                }
+            });
+            login.setOnFailed(ev -> {
+                endLogin(loginButton, progressBar, progressLabel);
+                discardPrewarmed();
+                login.getException().printStackTrace();
+                statusLabel.setText("Login failed: " + login.getException().getMessage());
+            });
+
+            Thread worker = new Thread(login, "cafe-login");
+            worker.setDaemon(true);
+            worker.start();
         });
 
         if (logoView.getImage() != null) {
@@ -98,7 +158,7 @@ public class WelcomeScreen {
             loginCard.getChildren().add(fallback);
         }
 
-        loginCard.getChildren().addAll(titleLabel, subtitleLabel, inputContainer, loginButton, statusLabel, new Separator(), createAccLink);
+        loginCard.getChildren().addAll(titleLabel, subtitleLabel, inputContainer, loginButton, progressBar, progressLabel, statusLabel, new Separator(), createAccLink);
         root.getChildren().add(loginCard);
 
         Scene scene = new Scene(root, 1000, 700); 
@@ -156,14 +216,30 @@ public class WelcomeScreen {
                 return;
             }
 
-            // Create and Save using the NEW addUser method in UserManager
+            // Create and Save using the NEW addUser method in UserManager; hashing the
+            // password takes a moment, so it runs off the FX thread
             User newUser = new User(id, name, role, 0, pass);
-            // You need to ensure UserManager has an addUser method or access the map directly:
-            cafe.getUserManager().getUsers().put(id, newUser);
-            cafe.saveAll();
-            
-            new Alert(Alert.AlertType.INFORMATION, "Account created! Please log in.").showAndWait();
-            dialog.close();
+            Task<Void> register = new Task<Void>() {
+                @Override
+                protected Void call() {
+                    cafe.getUserManager().addUser(newUser); // Tracks the new user and saves users.csv
+                    return null;
+                }
+            };
+            registerBtn.setDisable(true);
+            register.setOnSucceeded(ev -> {
+                new Alert(Alert.AlertType.INFORMATION, "Account created! Please log in.").showAndWait();
+                dialog.close();
+            });
+            register.setOnFailed(ev -> {
+                registerBtn.setDisable(false);
+                register.getException().printStackTrace();
+                new Alert(Alert.AlertType.ERROR, "Could not create the account: " + register.getException().getMessage()).show();
+            });
+
+            Thread worker = new Thread(register, "cafe-register");
+            worker.setDaemon(true);
+            worker.start();
         });
 
         root.getChildren().addAll(header, nameField, newIdField, newPassField, roleBox, registerBtn);
@@ -176,15 +252,52 @@ public class WelcomeScreen {
         dialog.show();
     }
 
-    private void routeUser(Stage stage, User user) {
+    private void endLogin(Button loginButton, ProgressBar progressBar, Label progressLabel) {
+        progressBar.progressProperty().unbind();
+        progressLabel.textProperty().unbind();
+        progressBar.setVisible(false);
+        progressLabel.setText("");
+        loginButton.setDisable(false);
+    }
+
+    private void routeUser(Stage stage, User user, long started) {
+        // Use the dashboard built during login if it was built for this user
+        Stage dashboard = prewarmedUser == user ? prewarmedStage : null;
+        discardPrewarmed();
+        if (dashboard == null) {
+            dashboard = new Stage();
+            prepareDashboard(dashboard, stage, user);
+        }
+
+        Stage shown = dashboard;
+        shown.setOnShown(ev -> {
+            shown.setOnShown(null); // Only the first showing counts
+            loginMetrics.record(user.getRole(), started);
+        });
         stage.hide();
+        shown.show();
+    }
+
+    /** Builds the dashboard for a user who may be about to log in (FX thread). */
+    private void prewarm(Stage loginStage, User user) {
+        prewarmedStage = new Stage();
+        prewarmedUser = user;
+        prepareDashboard(prewarmedStage, loginStage, user);
+    }
+
+    private void discardPrewarmed() {
+        prewarmedUser = null;
+        prewarmedStage = null;
+    }
+
+    private void prepareDashboard(Stage dashboard, Stage loginStage, User user) {
         String role = user.getRole();
         if ("Manager".equalsIgnoreCase(role)) {
-            new ManagerDashboard(cafe, user).start(new Stage(), stage);
+            new ManagerDashboard(cafe, user, loginMetrics).prepare(dashboard, loginStage);
         } else if ("Cashier".equalsIgnoreCase(role)) {
-            new CashierDashboard(cafe, user).start(new Stage(), stage);
+            new CashierDashboard(cafe, user).prepare(dashboard, loginStage);
         } else {
-            new CustomerDashboard(cafe, user).start(new Stage(), stage);
+            new CustomerDashboard(cafe, user).prepare(dashboard, loginStage);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,254 @@
+package application.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Optional binary image of a store, written next to its CSV file as "<file>.bin" and
+ * loaded with FileChannel.map, so startup does not have to tokenize text.
+ *
+ * Layout: a 20-byte header (magic, version, column count, row count, CRC32 of the rest),
+ * the schema as one type code per column, then rowCount * columnCount fixed 8-byte slots,
+ * then a string table. A string slot holds (offset, length) into the table; repeated
+ * strings such as units and roles are stored once.
+ *
+ * The CSV file stays the import/export format and the source of truth: an image is only
+ * used when it is at least as new as the CSV and its checksum matches. Images are written
+ * when the JVM runs with -Dcafe.binarySnapshots=true.
+ */
+final class BinarySnapshot {
+    static final boolean ENABLED = Boolean.getBoolean("cafe.binarySnapshots");
+
+    static final char STRING = 'S';
+    static final char INT = 'I';
+    static final char DOUBLE = 'D';
+    static final char BOOLEAN = 'B';
+
+    private static final int MAGIC = 0x43434253; // "CCBS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 20;
+    private static final int SLOT = 8;
+
+    private BinarySnapshot() {}
+
+    static String imageName(String csvFileName) {
+        return csvFileName + ".bin";
+    }
+
+    // --- Writing ---
+
+    /** Builds an image row by row; call the put methods in schema order for every row. */
+    static final class Writer {
+        private final String schema;
+        private ByteBuffer slots;
+        private ByteBuffer strings;
+        private final Map<String, Long> stringRefs = new HashMap<>(); // offset << 32 | length
+        private int column = 0;
+        private int rows = 0;
+
+        Writer(String schema) {
+            this.schema = schema;
+            this.slots = ByteBuffer.allocate(Math.max(schema.length(), 1) * SLOT * 64);
+            this.strings = ByteBuffer.allocate(4096);
+        }
+
+        Writer putString(String value) {
+            String s = value == null ? "" : value;
+            Long ref = stringRefs.get(s);
+            if (ref == null) {
+                byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+                strings = ensure(strings, bytes.length);
+                ref = (long) strings.position() << 32 | bytes.length;
+                strings.put(bytes);
+                stringRefs.put(s, ref);
+            }
+            slot(STRING).putInt((int) (ref >>> 32)).putInt((int) (long) ref);
+            return this;
+        }
+
+        Writer putInt(int value) {
+            slot(INT).putInt(value).putInt(0);
+            return this;
+        }
+
+        Writer putDouble(double value) {
+            slot(DOUBLE).putDouble(value);
+            return this;
+        }
+
+        Writer putBoolean(boolean value) {
+            slot(BOOLEAN).putInt(value ? 1 : 0).putInt(0);
+            return this;
+        }
+
+        private ByteBuffer slot(char type) {
+            if (schema.charAt(column) != type) {
+                throw new IllegalStateException("Column " + column + " of " + schema + " is not " + type);
+            }
+            if (++column == schema.length()) {
+                column = 0;
+                rows++;
+            }
+            slots = ensure(slots, SLOT);
+            return slots;
+        }
+
+        byte[] toByteArray() {
+            if (column != 0) throw new IllegalStateException("Incomplete row in binary snapshot");
+            int schemaBytes = schema.length();
+            byte[] image = new byte[HEADER_SIZE + schemaBytes + slots.position() + strings.position()];
+            ByteBuffer out = ByteBuffer.wrap(image);
+            out.putInt(MAGIC).putInt(VERSION).putInt(schemaBytes).putInt(rows).putInt(0);
+            out.put(schema.getBytes(StandardCharsets.US_ASCII));
+            out.put(slots.array(), 0, slots.position());
+            out.put(strings.array(), 0, strings.position());
+            out.putInt(16, checksum(ByteBuffer.wrap(image, HEADER_SIZE, image.length - HEADER_SIZE)));
+            return image;
+        }
+
+        private static ByteBuffer ensure(ByteBuffer buf, int extra) {
+            if (buf.remaining() >= extra) return buf;
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + extra));
+            bigger.put(buf.array(), 0, buf.position());
+            return bigger;
+        }
+    }
+
+    // --- Reading ---
+
+    /** Random access to the rows of a mapped image (safe to share between threads). */
+    static final class Reader {
+        private final ByteBuffer data;
+        private final int columns;
+        private final int rows;
+        private final int slotsStart;
+        private final int stringsStart;
+
+        private Reader(ByteBuffer data, int columns, int rows) {
+            this.data = data;
+            this.columns = columns;
+            this.rows = rows;
+            this.slotsStart = HEADER_SIZE + columns;
+            this.stringsStart = slotsStart + rows * columns * SLOT;
+        }
+
+        int rowCount() { return rows; }
+
+        String getString(int row, int column) {
+            int at = slot(row, column);
+            int offset = data.getInt(at);
+            int length = data.getInt(at + 4);
+            byte[] bytes = new byte[length];
+            ByteBuffer view = data.duplicate();
+            view.position(stringsStart + offset);
+            view.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        int getInt(int row, int column) { return data.getInt(slot(row, column)); }
+        double getDouble(int row, int column) { return data.getDouble(slot(row, column)); }
+        boolean getBoolean(int row, int column) { return data.getInt(slot(row, column)) != 0; }
+
+        private int slot(int row, int column) {
+            return slotsStart + (row * columns + column) * SLOT;
+        }
+    }
+
+    /**
+     * Maps the image of the given CSV file if it is usable (see isUsable).
+     * @return a reader over the image, or null if the CSV should be loaded instead.
+     */
+    static Reader open(String csvFileName, String schema) {
+        if (!isUsable(csvFileName, schema)) return null;
+        return map(imageName(csvFileName), schema);
+    }
+
+    /**
+     * Maps an image file, checking only its header and schema. On Windows a mapped file
+     * cannot be replaced until the mapping is released, so only map files that are not
+     * rewritten while the application runs.
+     * @return a reader over the image, or null if the file is missing or has another schema.
+     */
+    static Reader map(String imageFileName, String schema) {
+        File image = new File(imageFileName);
+        if (!image.exists()) return null;
+        try (FileChannel ch = FileChannel.open(image.toPath(), StandardOpenOption.READ)) {
+            if (readHeader(ch, schema) == null) return null;
+            MappedByteBuffer data = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            return new Reader(data, data.getInt(8), data.getInt(12));
+        } catch (IOException e) {
+            System.err.println("Could not map " + image + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * True if the image of the given CSV file exists, is at least as new as the CSV
+     * (so the CSV was not edited or imported since) and has the expected schema and an
+     * intact checksum.
+     */
+    static boolean isUsable(String csvFileName, String schema) {
+        File image = new File(imageName(csvFileName));
+        File csv = new File(csvFileName);
+        if (!image.exists()) return false;
+        if (csv.exists() && csv.lastModified() > image.lastModified()) return false;
+
+        try (FileChannel ch = FileChannel.open(image.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(ch, schema);
+            if (header == null) return false;
+
+            CRC32 crc = new CRC32();
+            ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+            long pos = HEADER_SIZE;
+            int n;
+            while ((n = ch.read(buf, pos)) > 0) {
+                buf.flip();
+                crc.update(buf);
+                buf.clear();
+                pos += n;
+            }
+            if ((int) crc.getValue() != header.getInt(16)) {
+                System.err.println("CHECKSUM MISMATCH: " + image + " is damaged; loading the CSV instead.");
+                return false;
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Could not read " + image + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** @return the header if magic, version, schema and size all check out, else null. */
+    private static ByteBuffer readHeader(FileChannel ch, String schema) throws IOException {
+        long size = ch.size();
+        if (size < HEADER_SIZE + schema.length() || size > Integer.MAX_VALUE) return null;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + schema.length());
+        while (header.hasRemaining()) {
+            if (ch.read(header, header.position()) < 0) return null;
+        }
+        if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) return null;
+        int columns = header.getInt(8);
+        int rows = header.getInt(12);
+        if (columns != schema.length() || rows < 0
+                || HEADER_SIZE + columns + (long) rows * columns * SLOT > size) return null;
+
+        byte[] fileSchema = Arrays.copyOfRange(header.array(), HEADER_SIZE, HEADER_SIZE + columns);
+        if (!Arrays.equals(fileSchema, schema.getBytes(StandardCharsets.US_ASCII))) return null;
+        return header;
+    }
+
+    private static int checksum(ByteBuffer buf) {
+        CRC32 crc = new CRC32();
+        crc.update(buf);
+        return (int) crc.getValue();
+    }
+}
\ No newline at end of file
@@ -1,27 +1,155 @@
 package application.model;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javafx.application.Platform;
+
+/**
+ * Entry point to the model. The four stores load in parallel on background threads as
+ * soon as the Cafe is created; each getter blocks only until its own store is ready, and
+ * the *Async getters let screens wait without blocking the FX thread. The reservation
+ * book loads as soon as the tables are in.
+ *
+ * There is one copy of each store per Cafe. Screens get them from here rather than
+ * loading their own, and hear about changes made elsewhere through getEvents().
+ */
 public class Cafe {
-    private Inventory inventory;
-    private Menu menu;
-    private UserManager userManager;
-    private TableManager tableManager; // <--- NEW
+    // Journal entries allowed to pile up before they are folded back into the CSV files
+    private static final int COMPACT_THRESHOLD = 200;
+
+    private static final ExecutorService LOADER = Executors.newFixedThreadPool(4, r -> {
+        Thread t = new Thread(r, "cafe-loader");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final ChangeBus events = new ChangeBus();
+    private final CompletableFuture<Inventory> inventory;
+    private final CompletableFuture<Menu> menu;
+    private final CompletableFuture<UserManager> userManager;
+    private final CompletableFuture<TableManager> tableManager; // <--- NEW
+    private final CompletableFuture<ReservationBook> reservations;
+    private TransactionJournal journal;
+    private final CompletableFuture<SalesLedger> salesLedger;
+
+    // Rows queued by the most recent saveAll() (clean stores are skipped)
+    private int lastFlushRecords = 0;
+    // Bytes written by the latest saveAll() whose files are all on disk (guarded by this)
+    private long lastFlushBytes = 0;
+    private long saveCount = 0;     // saveAll() calls so far
+    private long lastFlushSave = 0; // Which call lastFlushBytes belongs to
 
     public Cafe() {
-        this.inventory = new Inventory();
-        this.menu = new Menu();
-        this.userManager = new UserManager();
-        this.tableManager = new TableManager(); // <--- NEW
+        // Each store replays its own journal entries right after loading
+        this.journal = new TransactionJournal();
+        this.inventory = CompletableFuture.supplyAsync(() -> {
+            Inventory i = new Inventory(events);
+            journal.replayStock(i);
+            return i;
+        }, LOADER);
+        this.menu = CompletableFuture.supplyAsync(Menu::new, LOADER)
+                .thenCombine(inventory, (m, i) -> { m.bind(i); return m; });
+        this.userManager = CompletableFuture.supplyAsync(() -> {
+            UserManager u = new UserManager(events);
+            journal.replayPoints(u);
+            return u;
+        }, LOADER);
+        this.tableManager = CompletableFuture.supplyAsync(() -> {
+            TableManager t = new TableManager(events);
+            journal.replayTables(t);
+            return t;
+        }, LOADER); // <--- NEW
+        this.reservations = tableManager.thenApplyAsync(ReservationBook::new, LOADER);
+        // Opening may scan the whole ledger after a crash, so it stays off the FX thread too
+        this.salesLedger = CompletableFuture.supplyAsync(SalesLedger::new, LOADER);
+        // Accounts that never log in get their plain-text passwords hashed too, once
+        userManager.thenAcceptAsync(UserManager::hashPlainPasswords, LOADER);
+
+        // Fold recovered changes back into the snapshots once everything is in memory
+        if (journal.getEntryCount() > 0) {
+            CompletableFuture.allOf(menu, userManager, tableManager)
+                    .thenRun(() -> Platform.runLater(this::saveAll));
+        }
     }
 
-    public Inventory getInventory() { return inventory; }
-    public Menu getMenu() { return menu; }
-    public UserManager getUserManager() { return userManager; }
-    public TableManager getTableManager() { return tableManager; } // <--- NEW
+    public Inventory getInventory() { return inventory.join(); }
+    public Menu getMenu() { return menu.join(); }
+    public UserManager getUserManager() { return userManager.join(); }
+    public TableManager getTableManager() { return tableManager.join(); } // <--- NEW
+    public ReservationBook getReservations() { return reservations.join(); }
+    public TransactionJournal getJournal() { return journal; }
+    public ChangeBus getEvents() { return events; }
 
-    public void saveAll() {
-        inventory.saveInventory();
-        menu.saveMenu();
-        userManager.saveUsers();
-        tableManager.saveTables(); // <--- NEW
+    public CompletableFuture<Inventory> getInventoryAsync() { return inventory; }
+    public CompletableFuture<Menu> getMenuAsync() { return menu; }
+    public CompletableFuture<UserManager> getUserManagerAsync() { return userManager; }
+    public CompletableFuture<TableManager> getTableManagerAsync() { return tableManager; }
+    public CompletableFuture<ReservationBook> getReservationsAsync() { return reservations; }
+    public CompletableFuture<SalesLedger> getSalesLedgerAsync() { return salesLedger; }
+    public SalesLedger getSalesLedger() { return salesLedger.join(); }
+
+    /** Persists the changes logged for one transaction as a single journal append. */
+    public void commit() {
+        journal.commit();
+        if (journal.getEntryCount() >= COMPACT_THRESHOLD) saveAll();
     }
+
+    /**
+     * Snapshots every store that changed since its last save and hands them to the
+     * background writer; the journal is truncated once they are on disk.
+     * @return completes with the bytes this call wrote (CSV files plus binary images).
+     */
+    public CompletableFuture<Long> saveAll() {
+        journal.commit();
+        List<PersistenceService.Snapshot> snapshots = new ArrayList<>();
+        Inventory inventory = getInventory();
+        Menu menu = getMenu();
+        UserManager userManager = getUserManager();
+        TableManager tableManager = getTableManager();
+        if (inventory.isDirty()) snapshots.add(inventory.snapshot());
+        if (menu.isDirty()) snapshots.add(menu.snapshot());
+        if (userManager.isDirty()) snapshots.add(userManager.snapshot());
+        if (tableManager.isDirty()) {
+            snapshots.add(tableManager.snapshot()); // <--- NEW
+            snapshots.add(tableManager.turnoverSnapshot());
+        }
+
+        int records = 0;
+        for (PersistenceService.Snapshot s : snapshots) records += s.getRecordCount();
+        lastFlushRecords = records;
+
+        long save;
+        synchronized (this) {
+            save = ++saveCount;
+        }
+        CompletableFuture<Long> written = PersistenceService.getInstance().checkpoint(snapshots, journal);
+        journal.markCompacted();
+        return written.whenComplete((bytes, error) -> {
+            if (bytes == null) return;
+            synchronized (this) {
+                if (save < lastFlushSave) return; // A later save finished first
+                lastFlushSave = save;
+                lastFlushBytes = bytes;
+            }
+        });
+    }
+
+    /** Blocks until all queued writes are on disk (call before the application exits). */
+    public void flush() {
+        journal.commit();
+        PersistenceService.getInstance().flush();
+    }
+
+    /**
+     * Bytes written by the latest saveAll() that has finished writing (in the background);
+     * see saveAll()'s result for the bytes of one particular call.
+     */
+    public synchronized long getLastFlushBytes() { return lastFlushBytes; }
+
+    /** Records (CSV rows) queued by the most recent saveAll(). */
+    public int getLastFlushRecords() { return lastFlushRecords; }
 }
\ No newline at end of file
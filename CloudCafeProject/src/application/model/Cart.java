@@ -0,0 +1,121 @@
+package application.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyLongProperty;
+import javafx.beans.property.ReadOnlyLongWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+/**
+ * The order being rung up on a register (FX thread only).
+ *
+ * Lines are keyed by MenuItem, so adding an item that is already in the cart is a map
+ * lookup rather than a scan. Each line exposes its quantity and line total as properties,
+ * so a TableView row updates by itself when they change. The subtotal is kept as a running
+ * sum in centavos, adjusted by every change instead of re-summed.
+ *
+ * The cart is also where an order is priced: discount, total and loyalty points follow
+ * from the subtotal and the customer in integer arithmetic (see Money), without touching
+ * the lines or allocating.
+ */
+public class Cart {
+    /** One cart row: a menu item and how many of it. */
+    public static final class Line {
+        private final MenuItem item;
+        private final long unitPrice; // Centavos
+        private final ReadOnlyIntegerWrapper qty = new ReadOnlyIntegerWrapper(this, "qty", 0);
+        private final ReadOnlyDoubleWrapper price = new ReadOnlyDoubleWrapper(this, "price", 0);
+
+        private Line(MenuItem item) {
+            this.item = item;
+            this.unitPrice = item.getPriceCentavos();
+        }
+
+        private void setQty(int newQty) {
+            qty.set(newQty);
+            price.set(getLineTotal() / 100.0);
+        }
+
+        public MenuItem getItem() { return item; }
+        public String getName() { return item.getName(); }
+        public int getQty() { return qty.get(); }
+        /** Line total in pesos (unit price times quantity). */
+        public double getPrice() { return price.get(); }
+        public long getUnitPrice() { return unitPrice; }
+        public long getLineTotal() { return unitPrice * qty.get(); }
+
+        public ReadOnlyIntegerProperty qtyProperty() { return qty.getReadOnlyProperty(); }
+        public ReadOnlyDoubleProperty priceProperty() { return price.getReadOnlyProperty(); }
+    }
+
+    private final ObservableList<Line> lines = FXCollections.observableArrayList();
+    private final ObservableList<Line> readOnlyLines = FXCollections.unmodifiableObservableList(lines);
+    private final Map<MenuItem, Line> byItem = new HashMap<>();
+    private final ReadOnlyLongWrapper subtotal = new ReadOnlyLongWrapper(this, "subtotal", 0);
+    private User customer; // Null for a walk-in guest
+
+    /** Adds one serving of the item, as a new line or onto its existing line. */
+    public Line add(MenuItem item) {
+        Line line = byItem.get(item);
+        if (line == null) {
+            line = new Line(item);
+            byItem.put(item, line);
+            lines.add(line);
+        }
+        line.setQty(line.getQty() + 1);
+        subtotal.set(subtotal.get() + line.unitPrice);
+        return line;
+    }
+
+    /** Takes one serving off a line, dropping the line when it reaches zero. */
+    public void removeOne(Line line) {
+        if (byItem.get(line.item) != line) return;
+        if (line.getQty() > 1) {
+            line.setQty(line.getQty() - 1);
+        } else {
+            byItem.remove(line.item);
+            lines.remove(line);
+        }
+        subtotal.set(subtotal.get() - line.unitPrice);
+    }
+
+    public void clear() {
+        byItem.clear();
+        lines.clear();
+        subtotal.set(0);
+        customer = null;
+    }
+
+    public boolean isEmpty() { return byItem.isEmpty(); }
+
+    /** The lines in the order they were first added, for a TableView. */
+    public ObservableList<Line> getLines() { return readOnlyLines; }
+
+    /** Sum of all line totals in centavos. */
+    public long getSubtotal() { return subtotal.get(); }
+    public ReadOnlyLongProperty subtotalProperty() { return subtotal.getReadOnlyProperty(); }
+
+    // --- Pricing ---
+
+    public User getCustomer() { return customer; }
+    public void setCustomer(User customer) { this.customer = customer; }
+
+    /** VIP discount in centavos (0 for other members and guests). */
+    public long getDiscount() {
+        return customer != null && customer.isVIP() ? Money.percentOf(getSubtotal(), Money.VIP_DISCOUNT_PERCENT) : 0;
+    }
+
+    /** Amount to pay in centavos. */
+    public long getTotal() { return getSubtotal() - getDiscount(); }
+
+    /** Loyalty points the customer earns for paying the total (0 for guests). */
+    public int getPointsEarned() {
+        return customer != null ? (int) (getTotal() / Money.CENTAVOS_PER_POINT) : 0;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,109 @@
+package application.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+
+/**
+ * Model-change notifications shared by every screen of one Cafe.
+ *
+ * The stores publish each stock, table or points change as it happens, from any thread.
+ * Subscribers are called on the FX thread with everything that changed since the last
+ * delivery, one de-duplicated batch per topic, so a checkout that touches a dozen
+ * ingredients wakes each screen once. Subscribers are called in the order they
+ * subscribed; the stores subscribe first, so their JavaFX properties are already current
+ * when the screens hear about a change.
+ */
+public final class ChangeBus {
+    /** A kind of change, typed by the object it reports. */
+    public static final class Topic<T> {
+        private final String name;
+
+        private Topic(String name) { this.name = name; }
+
+        @Override
+        public String toString() { return name; }
+    }
+
+    /** An ingredient's stock level changed. */
+    public static final Topic<Ingredient> STOCK = new Topic<>("stock");
+    /** A table's status or customer changed. */
+    public static final Topic<Table> TABLES = new Topic<>("tables");
+    /** A member's loyalty points changed. */
+    public static final Topic<User> POINTS = new Topic<>("points");
+
+    private static final class Change {
+        final Topic<?> topic;
+        final Object item;
+
+        Change(Topic<?> topic, Object item) {
+            this.topic = topic;
+            this.item = item;
+        }
+    }
+
+    private static final class Subscriber<T> {
+        final Topic<T> topic;
+        final Consumer<List<T>> listener;
+
+        Subscriber(Topic<T> topic, Consumer<List<T>> listener) {
+            this.topic = topic;
+            this.listener = listener;
+        }
+
+        @SuppressWarnings("unchecked")
+        void deliver(List<?> batch) {
+            listener.accept((List<T>) batch); // Batches are filed under their own topic
+        }
+    }
+
+    private final ConcurrentLinkedQueue<Change> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final List<Subscriber<?>> subscribers = new CopyOnWriteArrayList<>();
+
+    /**
+     * Calls the listener on the FX thread with each batch of changes on the topic.
+     * @return a handle that unsubscribes the listener (screens run it when they close).
+     */
+    public <T> Runnable subscribe(Topic<T> topic, Consumer<List<T>> listener) {
+        Subscriber<T> s = new Subscriber<>(topic, listener);
+        subscribers.add(s);
+        return () -> subscribers.remove(s);
+    }
+
+    /** Reports a change; safe from any thread. Delivery is deferred to the next batch. */
+    <T> void publish(Topic<T> topic, T item) {
+        pending.add(new Change(topic, item));
+        if (flushScheduled.compareAndSet(false, true)) {
+            Platform.runLater(this::flush);
+        }
+    }
+
+    /** Delivers everything published since the last flush (FX thread). */
+    private void flush() {
+        flushScheduled.set(false);
+        Map<Topic<?>, Set<Object>> changed = new IdentityHashMap<>(4);
+        Change c;
+        while ((c = pending.poll()) != null) {
+            changed.computeIfAbsent(c.topic, t -> new LinkedHashSet<>()).add(c.item);
+        }
+        Map<Topic<?>, List<Object>> batches = new IdentityHashMap<>(4);
+        for (Map.Entry<Topic<?>, Set<Object>> e : changed.entrySet()) {
+            batches.put(e.getKey(), Collections.unmodifiableList(new ArrayList<>(e.getValue())));
+        }
+        for (Subscriber<?> s : subscribers) {
+            List<Object> batch = batches.get(s.topic);
+            if (batch != null) s.deliver(batch);
+        }
+    }
+}
\ No newline at end of file
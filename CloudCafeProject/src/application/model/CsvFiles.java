@@ -0,0 +1,151 @@
+package application.model;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.Collection;
+import java.util.zip.CRC32;
+
+/**
+ * Shared helper used by the stores to read and write their CSV data files.
+ *
+ * Writes are crash-safe: the data goes to a temp file that is fsync'd and then atomically
+ * renamed over the live file, keeping the previous generation as "<file>.bak". Every file
+ * ends with a "#CRC32:xxxxxxxx" trailer that is checked on load.
+ */
+final class CsvFiles {
+    private static final String CHECKSUM_PREFIX = "#CRC32:";
+
+    private CsvFiles() {}
+
+    /**
+     * Writes the header and one line per row to the given file.
+     * @return the number of bytes written, so callers can report flush sizes.
+     */
+    static long write(String fileName, String header, Collection<String> rows) throws IOException {
+        StringBuilder sb = new StringBuilder(header.length() + rows.size() * 48 + 32);
+        sb.append(header).append(System.lineSeparator());
+        for (String row : rows) {
+            sb.append(row).append(System.lineSeparator());
+        }
+        byte[] body = sb.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] trailer = (CHECKSUM_PREFIX + checksum(body, body.length) + System.lineSeparator())
+                .getBytes(StandardCharsets.UTF_8);
+        return writeAtomically(fileName, body, trailer);
+    }
+
+    /**
+     * Replaces the file with the concatenated parts via a fsync'd temp file and an atomic
+     * rename, keeping the previous generation as "<file>.bak".
+     * @return the number of bytes written.
+     */
+    static long writeAtomically(String fileName, byte[]... parts) throws IOException {
+        Path target = Paths.get(fileName).toAbsolutePath();
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        long length = 0;
+        try (FileChannel ch = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (byte[] part : parts) {
+                ByteBuffer buf = ByteBuffer.wrap(part);
+                while (buf.hasRemaining()) ch.write(buf);
+                length += part.length;
+            }
+            ch.force(true);
+        }
+
+        // Keep the last good generation around in case the new one is ever damaged
+        if (Files.exists(target)) {
+            moveAtomically(target, target.resolveSibling(target.getFileName() + ".bak"));
+        }
+        moveAtomically(temp, target);
+        syncDirectory(target.getParent());
+        return length;
+    }
+
+    /**
+     * Opens a data file for reading after verifying its checksum trailer (see readVerified).
+     * @return a reader over the rows including the header, or null if no usable file exists.
+     */
+    static BufferedReader openVerified(String fileName) throws IOException {
+        String content = readVerified(fileName);
+        return content == null ? null : new BufferedReader(new StringReader(content));
+    }
+
+    /**
+     * Opens a data file for tokenizing after verifying its checksum trailer (see readVerified).
+     * @return a reader positioned before the header record, or null if no usable file exists.
+     */
+    static CsvReader openRecords(String fileName) throws IOException {
+        String content = readVerified(fileName);
+        return content == null ? null : new CsvReader(content);
+    }
+
+    /**
+     * Reads a data file after verifying its checksum trailer. Falls back to the ".bak"
+     * generation if the live file is missing or damaged; a damaged file is renamed to
+     * "<file>.corrupt" so it is never silently overwritten.
+     * Files without a trailer (written by older versions or by hand) are accepted as-is.
+     * @return the content without the trailer, or null if no usable file exists.
+     */
+    static String readVerified(String fileName) throws IOException {
+        Path target = Paths.get(fileName).toAbsolutePath();
+        Path[] candidates = { target, target.resolveSibling(target.getFileName() + ".bak") };
+
+        for (Path candidate : candidates) {
+            if (!Files.exists(candidate)) continue;
+            byte[] data = Files.readAllBytes(candidate);
+            String content = verify(data);
+            if (content != null) {
+                if (candidate != target) {
+                    System.err.println("Recovered " + fileName + " from " + candidate.getFileName());
+                }
+                return content;
+            }
+            System.err.println("CHECKSUM MISMATCH: " + candidate + " is damaged and will be ignored.");
+            Files.move(candidate, candidate.resolveSibling(candidate.getFileName() + ".corrupt"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        return null;
+    }
+
+    /** @return the file content without its trailer, or null if the checksum does not match. */
+    private static String verify(byte[] data) {
+        int end = data.length;
+        while (end > 0 && (data[end - 1] == '\n' || data[end - 1] == '\r')) end--;
+        int lineStart = end;
+        while (lineStart > 0 && data[lineStart - 1] != '\n') lineStart--;
+
+        String lastLine = new String(data, lineStart, end - lineStart, StandardCharsets.UTF_8);
+        if (!lastLine.startsWith(CHECKSUM_PREFIX)) {
+            return new String(data, StandardCharsets.UTF_8); // Legacy file without a trailer
+        }
+        String expected = lastLine.substring(CHECKSUM_PREFIX.length()).trim();
+        if (!expected.equalsIgnoreCase(checksum(data, lineStart))) return null;
+        return new String(data, 0, lineStart, StandardCharsets.UTF_8);
+    }
+
+    private static String checksum(byte[] data, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, length);
+        return String.format("%08x", crc.getValue());
+    }
+
+    private static void moveAtomically(Path from, Path to) throws IOException {
+        try {
+            Files.move(from, to, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(from, to, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /** Makes the rename itself durable where the platform allows it (not supported on Windows). */
+    private static void syncDirectory(Path dir) {
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException e) {
+            // Best effort only
+        }
+    }
+}
\ No newline at end of file
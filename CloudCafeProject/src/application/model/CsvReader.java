@@ -0,0 +1,210 @@
+package application.model;
+
+/**
+ * Streaming CSV tokenizer shared by the store loaders.
+ *
+ * Fields are read straight out of the file content in order (nextString, nextInt, ...)
+ * without splitting lines into arrays first. Unquoted fields are trimmed; a field wrapped
+ * in double quotes may contain commas, line breaks and doubled "" quotes. Typical use:
+ *
+ *   CsvReader r = new CsvReader(content);
+ *   r.nextRecord(); // header
+ *   while (r.nextRecord()) { String name = r.nextString(); int qty = r.nextInt(); ... }
+ *
+ * Reading past the last field of a record throws IllegalStateException; fields that are
+ * not read are skipped by the next nextRecord() call.
+ */
+final class CsvReader {
+    private final String data;
+    private final int end;
+    private int pos = 0;
+
+    private int recordStart = 0;
+    private boolean atRecordEnd = true;
+
+    // Bounds of the last field read (trimmed), or its unescaped text if it had "" escapes
+    private int fieldStart;
+    private int fieldEnd;
+    private boolean quoted;
+    private String unescaped;
+
+    CsvReader(String data) {
+        this.data = data;
+        this.end = data.length();
+    }
+
+    // --- Records ---
+
+    /**
+     * Moves to the next non-blank record, skipping whatever is left of the current one.
+     * @return false once the input is exhausted.
+     */
+    boolean nextRecord() {
+        while (!atRecordEnd) scanField();
+        while (pos < end) {
+            char c = data.charAt(pos);
+            if (c == '\r' || c == '\n') {
+                pos++;
+            } else if (isBlankLine()) {
+                while (pos < end && data.charAt(pos) != '\n') pos++;
+            } else {
+                break;
+            }
+        }
+        if (pos >= end) return false;
+        recordStart = pos;
+        atRecordEnd = false;
+        return true;
+    }
+
+    /** True while the current record has fields left to read. */
+    boolean hasMoreFields() { return !atRecordEnd; }
+
+    /** The raw text of the current record up to the read position, for error messages. */
+    String currentRecord() {
+        int stop = pos;
+        while (stop < end && data.charAt(stop) != '\n' && data.charAt(stop) != '\r') stop++;
+        return data.substring(recordStart, stop);
+    }
+
+    // --- Typed fields ---
+
+    String nextString() {
+        scanField();
+        return unescaped != null ? unescaped : data.substring(fieldStart, fieldEnd);
+    }
+
+    /** True if the field returned last was wrapped in quotes. */
+    boolean wasQuoted() { return quoted; }
+
+    int nextInt() {
+        scanField();
+        if (unescaped != null) return Integer.parseInt(unescaped.trim());
+        int i = fieldStart;
+        boolean negative = false;
+        if (i < fieldEnd && (data.charAt(i) == '-' || data.charAt(i) == '+')) {
+            negative = data.charAt(i) == '-';
+            i++;
+        }
+        if (i == fieldEnd) throw badNumber();
+        long value = 0;
+        for (; i < fieldEnd; i++) {
+            int digit = data.charAt(i) - '0';
+            if (digit < 0 || digit > 9) throw badNumber();
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) throw badNumber();
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) throw badNumber();
+        return (int) value;
+    }
+
+    double nextDouble() {
+        return Double.parseDouble(nextString());
+    }
+
+    boolean nextBoolean() {
+        scanField();
+        if (unescaped != null) return Boolean.parseBoolean(unescaped.trim());
+        return fieldEnd - fieldStart == 4 && data.regionMatches(true, fieldStart, "true", 0, 4);
+    }
+
+    /** @throws IllegalArgumentException if the field is not one of the enum's constant names. */
+    <E extends Enum<E>> E nextEnum(Class<E> type) {
+        return Enum.valueOf(type, nextString());
+    }
+
+    // --- Scanning ---
+
+    private void scanField() {
+        if (atRecordEnd) throw new IllegalStateException("No more fields in record: " + currentRecord());
+        unescaped = null;
+        quoted = false;
+
+        while (pos < end && isSpace(data.charAt(pos))) pos++;
+        if (pos < end && data.charAt(pos) == '"') {
+            scanQuoted();
+        } else {
+            fieldStart = pos;
+            while (pos < end) {
+                char c = data.charAt(pos);
+                if (c == ',' || c == '\n' || c == '\r') break;
+                pos++;
+            }
+            fieldEnd = pos;
+            while (fieldEnd > fieldStart && isSpace(data.charAt(fieldEnd - 1))) fieldEnd--;
+        }
+
+        // Step over the delimiter; a line break (or the end of input) closes the record
+        if (pos < end && data.charAt(pos) == ',') {
+            pos++;
+        } else {
+            atRecordEnd = true;
+        }
+    }
+
+    private void scanQuoted() {
+        quoted = true;
+        pos++; // Opening quote
+        fieldStart = pos;
+        StringBuilder sb = null;
+        while (pos < end) {
+            char c = data.charAt(pos);
+            if (c == '"') {
+                if (pos + 1 < end && data.charAt(pos + 1) == '"') {
+                    // Escaped quote: only now do we need a copy of the text
+                    if (sb == null) sb = new StringBuilder().append(data, fieldStart, pos);
+                    sb.append('"');
+                    pos += 2;
+                    continue;
+                }
+                break;
+            }
+            if (sb != null) sb.append(c);
+            pos++;
+        }
+        fieldEnd = pos;
+        if (sb != null) unescaped = sb.toString();
+        if (pos < end) pos++; // Closing quote
+        // Ignore anything between the closing quote and the delimiter
+        while (pos < end && data.charAt(pos) != ',' && data.charAt(pos) != '\n' && data.charAt(pos) != '\r') pos++;
+    }
+
+    private boolean isBlankLine() {
+        for (int i = pos; i < end; i++) {
+            char c = data.charAt(i);
+            if (c == '\n' || c == '\r') return true;
+            if (!isSpace(c)) return false;
+        }
+        return true;
+    }
+
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private NumberFormatException badNumber() {
+        return new NumberFormatException("For input string: \"" + data.substring(fieldStart, fieldEnd) + "\"");
+    }
+
+    // --- Writing ---
+
+    /** Quotes a text field for writing if it contains a delimiter, quote or line break. */
+    static String quote(String value) {
+        if (value == null) return "";
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes && (value.isEmpty() || !isSpace(value.charAt(0)) && !isSpace(value.charAt(value.length() - 1)))) {
+            return value;
+        }
+        return quoteAlways(value);
+    }
+
+    /** Quotes a text field unconditionally (for fields whose unquoted form means something else). */
+    static String quoteAlways(String value) {
+        return '"' + (value == null ? "" : value.replace("\"", "\"\"")) + '"';
+    }
+}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package application.model;
+
+import java.util.Arrays;
+
+/**
+ * Counts durations (in seconds) in log-linear buckets, like HdrHistogram: exact below
+ * 16 s, then 16 buckets per power of two, so every reported value is within about 6%
+ * of the true one. Recording is a few integer operations and never allocates; the
+ * whole histogram is one int array of BUCKETS counts.
+ */
+public final class DwellHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_BITS = 22; // Up to 2^22 s (48 days); longer values are clamped
+    static final int BUCKETS = (MAX_BITS - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final int[] counts = new int[BUCKETS];
+    private long count = 0;
+    private long totalSeconds = 0;
+    private long maxSeconds = 0;
+
+    /** Adds one duration; negative values count as zero. */
+    public void record(long seconds) {
+        long v = Math.min(Math.max(seconds, 0), (1L << MAX_BITS) - 1);
+        counts[indexOf(v)]++;
+        count++;
+        totalSeconds += v;
+        maxSeconds = Math.max(maxSeconds, v);
+    }
+
+    /** Adds every value recorded in another histogram. */
+    public void add(DwellHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += other.counts[i];
+        count += other.count;
+        totalSeconds += other.totalSeconds;
+        maxSeconds = Math.max(maxSeconds, other.maxSeconds);
+    }
+
+    public void clear() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        totalSeconds = 0;
+        maxSeconds = 0;
+    }
+
+    public long getCount() { return count; }
+    public long getMaxSeconds() { return maxSeconds; }
+    public long getMeanSeconds() { return count == 0 ? 0 : totalSeconds / count; }
+
+    /** The duration that percent of the recorded values do not exceed, or 0 if empty. */
+    public long valueAtPercentile(double percent) {
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(count * Math.min(percent, 100) / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) return Math.min(middleOf(i), maxSeconds);
+        }
+        return maxSeconds;
+    }
+
+    static int indexOf(long v) {
+        if (v < SUB_BUCKETS) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        int shift = exp - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((v >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long lowestOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    }
+
+    private static long middleOf(int index) {
+        if (index < SUB_BUCKETS) return index;
+        int shift = index / SUB_BUCKETS - 1;
+        return lowestOf(index) + ((1L << shift) >> 1);
+    }
+
+    // --- Persistence ---
+
+    /** The non-empty buckets as "index:count" pairs separated by spaces. */
+    String toCSV() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < BUCKETS; i++) {
+            if (counts[i] == 0) continue;
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(i).append(':').append(counts[i]);
+        }
+        return sb.toString();
+    }
+
+    /** Restores buckets written by toCSV (added to the current counts). */
+    void readCSV(String buckets, long totalSeconds, long maxSeconds) {
+        int pos = 0;
+        int end = buckets.length();
+        while (pos < end) {
+            if (buckets.charAt(pos) == ' ') {
+                pos++;
+                continue;
+            }
+            int colon = buckets.indexOf(':', pos);
+            int next = buckets.indexOf(' ', pos);
+            if (next < 0) next = end;
+            if (colon < 0 || colon > next) throw new NumberFormatException("Bad bucket: " + buckets.substring(pos, next));
+            int index = Integer.parseInt(buckets, pos, colon, 10);
+            int n = Integer.parseInt(buckets, colon + 1, next, 10);
+            if (index < 0 || index >= BUCKETS || n < 0) throw new NumberFormatException("Bad bucket: " + buckets.substring(pos, next));
+            counts[index] += n;
+            count += n;
+            pos = next;
+        }
+        this.totalSeconds += totalSeconds;
+        this.maxSeconds = Math.max(this.maxSeconds, maxSeconds);
+    }
+
+    long getTotalSeconds() { return totalSeconds; }
+}
\ No newline at end of file
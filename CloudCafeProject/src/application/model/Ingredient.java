@@ -1,51 +1,99 @@
 package application.model;
 
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
 
 // Represents a single item in the inventory.
 public class Ingredient {
-    // JavaFX Properties for automatic GUI updates (e.g., when stockLevel changes)
-    private final SimpleStringProperty name;
-    private final SimpleIntegerProperty stockLevel;
-    private final SimpleStringProperty unit;
-    private final SimpleIntegerProperty reorderPoint;
+    private final String name;
+    private final String unit;
+    private final int reorderPoint;
+
+    // Authoritative stock count, safe to use from any register thread.
+    // Every change happens while holding 'lock'; reads need no lock.
+    private volatile int level;
+    private final ReentrantLock lock = new ReentrantLock();
+    private Inventory owner; // Notified after each change (null until added to an Inventory)
+
+    // JavaFX views for the inventory table, created the first time a screen binds to them.
+    // stockView is the FX-thread copy of 'level', synced in batches by the Inventory.
+    private ReadOnlyStringWrapper nameView;
+    private ReadOnlyStringWrapper unitView;
+    private ReadOnlyIntegerWrapper stockView;
+    private ReadOnlyIntegerWrapper reorderView;
 
     // Constructor
     public Ingredient(String name, int stockLevel, String unit, int reorderPoint) {
-        this.name = new SimpleStringProperty(name);
-        this.stockLevel = new SimpleIntegerProperty(stockLevel);
-        this.unit = new SimpleStringProperty(unit);
-        this.reorderPoint = new SimpleIntegerProperty(reorderPoint);
+        this.name = name;
+        this.level = stockLevel;
+        this.unit = unit;
+        this.reorderPoint = reorderPoint;
     }
 
     // --- Core Inventory Logic ---
 
     /** Checks if the current stock level is at or below the reorder point. */
     public boolean needsReorder() {
-        return this.stockLevel.get() <= this.reorderPoint.get();
+        return this.level <= this.reorderPoint;
     }
 
     /** Reduces stock by a specified amount (used during transactions). 
      * @return true if deduction was successful, false if stock was insufficient.
      */
     public boolean deductStock(int amount) {
-        if (amount > 0 && this.stockLevel.get() >= amount) {
-            // set() updates the value and notifies the JavaFX TableView automatically
-            this.stockLevel.set(this.stockLevel.get() - amount); 
-            return true; // Deduction successful
-        } else if (this.stockLevel.get() < amount) {
-            System.err.println("INSUFFICIENT STOCK: Cannot consume " + amount + " " + this.unit.get());
-            return false; // Deduction failed due to low stock
+        lock.lock();
+        try {
+            int current = this.level;
+            if (amount > 0 && current >= amount) {
+                this.level = current - amount;
+            } else if (current < amount) {
+                System.err.println("INSUFFICIENT STOCK: Cannot consume " + amount + " " + this.unit);
+                return false; // Deduction failed due to low stock
+            } else {
+                return false; // Deduction failed (e.g., amount <= 0)
+            }
+        } finally {
+            lock.unlock();
         }
-        return false; // Deduction failed (e.g., amount <= 0)
+        changed(); // Schedules the TableView update on the FX thread
+        return true; // Deduction successful
     }
 
     /** Increases stock by a specified amount (used during replenishment). */
     public void addStock(int amount) {
-        if (amount > 0) {
-            this.stockLevel.set(this.stockLevel.get() + amount);
+        if (amount <= 0) return;
+        lock.lock();
+        try {
+            this.level += amount;
+        } finally {
+            lock.unlock();
         }
+        changed();
+    }
+
+    // --- Concurrency Support (used by Inventory) ---
+
+    ReentrantLock lock() { return lock; }
+
+    /** Deducts without checks; the caller holds the lock and has validated the amount. */
+    void applyDeduction(int amount) {
+        this.level -= amount;
+    }
+
+    void setOwner(Inventory owner) { this.owner = owner; }
+
+    void changed() {
+        if (owner != null) owner.stockChanged(this);
+        else syncProperty();
+    }
+
+    /** Copies the authoritative level into the JavaFX property, if one exists (FX thread only). */
+    void syncProperty() {
+        if (stockView != null) stockView.set(this.level);
     }
     
     // --- Persistence Helper Methods ---
@@ -53,36 +101,67 @@ public class Ingredient {
 
     /** Converts the Ingredient object to a CSV format string for file saving. */
     public String toCSVString() {
-        return name.get() + "," + stockLevel.get() + "," + unit.get() + "," + reorderPoint.get();
+        return CsvReader.quote(name) + "," + level + "," + CsvReader.quote(unit) + "," + reorderPoint;
     }
 
     /** Creates an Ingredient object from a CSV line read from the file. */
     public static Ingredient fromCSVString(String csvLine) {
-        String[] parts = csvLine.split(",");
-        if (parts.length != 4) return null;
-        
+        CsvReader r = new CsvReader(csvLine);
+        return r.nextRecord() ? read(r) : null;
+    }
+
+    /** Appends this ingredient as one row of a binary image (schema "SISI"). */
+    void writeTo(BinarySnapshot.Writer image) {
+        image.putString(name).putInt(level).putString(unit).putInt(reorderPoint);
+    }
+
+    static Ingredient read(BinarySnapshot.Reader image, int row) {
+        return new Ingredient(image.getString(row, 0), image.getInt(row, 1), image.getString(row, 2), image.getInt(row, 3));
+    }
+
+    /** Reads one Name,Stock,Unit,ReorderPoint record; null if it is malformed. */
+    static Ingredient read(CsvReader r) {
         try {
-            String name = parts[0].trim();
-            int stock = Integer.parseInt(parts[1].trim());
-            String unit = parts[2].trim();
-            int reorder = Integer.parseInt(parts[3].trim());
+            String name = r.nextString();
+            int stock = r.nextInt();
+            String unit = r.nextString();
+            int reorder = r.nextInt();
+            if (r.hasMoreFields()) return null;
             
             return new Ingredient(name, stock, unit, reorder);
         } catch (NumberFormatException e) {
-            System.err.println("Error parsing number in line: " + csvLine);
+            System.err.println("Error parsing number in line: " + r.currentRecord());
             return null;
+        } catch (IllegalStateException e) {
+            return null; // Too few fields
         }
     }
     
     // --- Getters and Property Methods ---
     
-    public String getName() { return name.get(); } 
-    public int getStockLevel() { return stockLevel.get(); }
-    public String getUnit() { return unit.get(); }
-    public int getReorderPoint() { return reorderPoint.get(); }
-
-    public SimpleStringProperty nameProperty() { return name; }
-    public SimpleStringProperty unitProperty() { return unit; }
-    public SimpleIntegerProperty stockLevelProperty() { return stockLevel; }
-    public SimpleIntegerProperty reorderPointProperty() { return reorderPoint; }
+    public String getName() { return name; } 
+    public int getStockLevel() { return level; }
+    public String getUnit() { return unit; }
+    public int getReorderPoint() { return reorderPoint; }
+
+    // Created on first use; call from the FX thread
+    public ReadOnlyStringProperty nameProperty() {
+        if (nameView == null) nameView = new ReadOnlyStringWrapper(this, "name", name);
+        return nameView.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty unitProperty() {
+        if (unitView == null) unitView = new ReadOnlyStringWrapper(this, "unit", unit);
+        return unitView.getReadOnlyProperty();
+    }
+
+    public ReadOnlyIntegerProperty stockLevelProperty() {
+        if (stockView == null) stockView = new ReadOnlyIntegerWrapper(this, "stockLevel", level);
+        return stockView.getReadOnlyProperty();
+    }
+
+    public ReadOnlyIntegerProperty reorderPointProperty() {
+        if (reorderView == null) reorderView = new ReadOnlyIntegerWrapper(this, "reorderPoint", reorderPoint);
+        return reorderView.getReadOnlyProperty();
+    }
 }
\ No newline at end of file
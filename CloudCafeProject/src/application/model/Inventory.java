@@ -1,17 +1,48 @@
 package application.model;
 
 import java.io.*;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
+/**
+ * Thread-safe stock store shared by every register. Each Ingredient keeps its count in a
+ * volatile int that is only written while holding the Ingredient's lock, so reads need
+ * no lock; multi-ingredient orders lock their ingredients in id order. Changes are published on the Cafe's ChangeBus, which refreshes the
+ * JavaFX stock properties on the FX thread in batches before any screen hears of them.
+ *
+ * The name maps are concurrent, and new ingredients are registered under the Inventory's
+ * lock, so registers keep reading them while a manager adds an ingredient.
+ */
 public class Inventory {
     private Map<String, Ingredient> stock;
     private static final String INVENTORY_FILE = "inventory_data.csv"; 
+    private static final String HEADER = "Name,StockLevel,Unit,ReorderPoint";
+    private static final String IMAGE_SCHEMA = "SISI"; // Same columns, see BinarySnapshot
 
-    public Inventory() {
-        this.stock = new HashMap<>();
+    // Names of ingredients changed since the last save (any thread may mark them)
+    private final Set<String> dirtyItems = ConcurrentHashMap.newKeySet();
+    private volatile boolean dirty = false;
+
+    private final ChangeBus events;
+
+    // Dense id table for compiled recipes: ingredient id -> Ingredient. Written only in
+    // register(); the volatile write of byId publishes the slots filled before it.
+    private volatile Ingredient[] byId = new Ingredient[32];
+    private final Map<String, Integer> idByName = new ConcurrentHashMap<>();
+    private volatile int ingredientCount = 0;
+
+    public Inventory(ChangeBus events) {
+        this.stock = new ConcurrentHashMap<>();
+        this.events = events;
+        // First subscriber, so the properties are current before the screens are told
+        events.subscribe(ChangeBus.STOCK, changed -> {
+            for (Ingredient item : changed) item.syncProperty();
+        });
         loadInventory(); 
     }
     
@@ -20,18 +51,26 @@ public class Inventory {
     }
 
     public void loadInventory() {
-        File file = new File(INVENTORY_FILE);
-        if (!file.exists()) {
-            initializeDefaultIngredients();
+        // A current binary image skips CSV parsing altogether
+        BinarySnapshot.Reader image = BinarySnapshot.open(INVENTORY_FILE, IMAGE_SCHEMA);
+        if (image != null && image.rowCount() > 0) {
+            for (int row = 0; row < image.rowCount(); row++) {
+                register(Ingredient.read(image, row));
+            }
             return;
         }
-        
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            br.readLine(); 
-            String line;
-            while ((line = br.readLine()) != null) {
-                Ingredient item = Ingredient.fromCSVString(line);
-                if (item != null) this.stock.put(item.getName(), item);
+
+        // Verifies the checksum trailer and falls back to the .bak generation if needed
+        try {
+            CsvReader records = CsvFiles.openRecords(INVENTORY_FILE);
+            if (records == null) {
+                initializeDefaultIngredients();
+                return;
+            }
+            records.nextRecord(); // Skip header
+            while (records.nextRecord()) {
+                Ingredient item = Ingredient.read(records);
+                if (item != null) register(item);
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -40,15 +79,69 @@ public class Inventory {
         if (this.stock.isEmpty()) initializeDefaultIngredients();
     }
 
+    /** Queues a background write of the inventory file (never blocks on disk I/O). */
     public void saveInventory() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(INVENTORY_FILE))) {
-            pw.println("Name,StockLevel,Unit,ReorderPoint"); 
-            for (Ingredient item : stock.values()) {
-                pw.println(item.toCSVString());
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        PersistenceService.getInstance().write(snapshot());
+    }
+
+    /** Copies the current rows for the persistence thread; the store counts as clean afterwards. */
+    PersistenceService.Snapshot snapshot() {
+        List<String> rows = new ArrayList<>(stock.size());
+        BinarySnapshot.Writer image = BinarySnapshot.ENABLED ? new BinarySnapshot.Writer(IMAGE_SCHEMA) : null;
+        // Clear first: a change racing with the copy marks the store dirty again
+        dirtyItems.clear();
+        dirty = false;
+        for (Ingredient item : stock.values()) {
+            rows.add(item.toCSVString());
+            if (image != null) item.writeTo(image);
+        }
+        return new PersistenceService.Snapshot(INVENTORY_FILE, HEADER, rows)
+                .withImage(image != null ? image.toByteArray() : null);
+    }
+
+    // --- Dirty Tracking ---
+
+    /** True if anything changed since the last successful save. */
+    public boolean isDirty() { return dirty; }
+
+    /** Number of ingredients modified since the last save. */
+    public int getDirtyCount() { return dirtyItems.size(); }
+
+    private synchronized void register(Ingredient item) {
+        item.setOwner(this);
+        Ingredient[] table = byId;
+        Integer id = idByName.get(item.getName());
+        if (id == null) {
+            id = ingredientCount;
+            if (id == table.length) table = Arrays.copyOf(table, id * 2);
         }
+        table[id] = item;
+        byId = table;
+        // Only now may readers find the id: its slot is already visible to them
+        if (id == ingredientCount) {
+            idByName.put(item.getName(), id);
+            ingredientCount = id + 1;
+        }
+        this.stock.put(item.getName(), item);
+    }
+
+    private void markDirty(Ingredient item) {
+        dirtyItems.add(item.getName());
+        dirty = true;
+    }
+
+    /** Called by an Ingredient after its stock changed, possibly from a register thread. */
+    void stockChanged(Ingredient item) {
+        markDirty(item);
+        events.publish(ChangeBus.STOCK, item);
+    }
+
+    /**
+     * Registers a callback run on the FX thread with each batch of ingredients whose stock changed.
+     * @return a handle that removes the callback again.
+     */
+    public Runnable addStockListener(Consumer<List<Ingredient>> listener) {
+        return events.subscribe(ChangeBus.STOCK, listener);
     }
     
     // --- UPDATED: Full Ingredient List based on PDF Specs ---
@@ -87,9 +180,65 @@ public class Inventory {
     }
 
     public void addIngredient(Ingredient ingredient) {
-        this.stock.put(ingredient.getName(), ingredient);
+        register(ingredient);
+        markDirty(ingredient);
     }
     
+    // --- Compiled Recipes ---
+
+    /** @return the dense id of an ingredient, or -1 if it is not stocked. */
+    public int indexOf(String name) {
+        Integer id = idByName.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public Ingredient getIngredient(int id) { return byId[id]; }
+
+    // --- Orders ---
+
+    /** Starts an empty demand for a multi-item order. */
+    public OrderDemand newOrder() { return new OrderDemand(ingredientCount); }
+
+    /**
+     * Validates the whole order against current stock and, only if every ingredient
+     * suffices, deducts it in one pass. Nothing is changed when it fails.
+     * @return false if stock was insufficient (see OrderDemand.getShortfall()).
+     */
+    public boolean reserve(OrderDemand order) {
+        order.setShortfall(null);
+        if (!order.isComplete()) return false;
+
+        // Lock in ascending id order so concurrent registers can never deadlock
+        order.sortIds();
+        Ingredient[] table = byId;
+        int locked = 0;
+        try {
+            for (; locked < order.size(); locked++) {
+                table[order.ingredientId(locked)].lock().lock();
+            }
+            for (int i = 0; i < order.size(); i++) {
+                int id = order.ingredientId(i);
+                if (table[id].getStockLevel() < order.amountOf(id)) {
+                    order.setShortfall(table[id]);
+                    return false;
+                }
+            }
+            for (int i = 0; i < order.size(); i++) {
+                int id = order.ingredientId(i);
+                table[id].applyDeduction(order.amountOf(id));
+            }
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                table[order.ingredientId(i)].lock().unlock();
+            }
+        }
+
+        for (int i = 0; i < order.size(); i++) {
+            table[order.ingredientId(i)].changed();
+        }
+        return true;
+    }
+
     public boolean checkIfItemExists(String name) {
         return this.stock.containsKey(name);
     }
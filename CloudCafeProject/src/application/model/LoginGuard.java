@@ -0,0 +1,121 @@
+package application.model;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Keeps logins fast and brute force slow, in front of PasswordHasher.
+ *
+ * Verification cache: after a successful login the ID maps to an HMAC of the stored hash
+ * and the password under a key that only lives in this process. The same user logging in
+ * again during a shift change then costs one HMAC instead of a full PBKDF2 run. A changed
+ * password or stored hash simply stops matching. The cache is bounded (LRU).
+ *
+ * Throttle: after MAX_FAILURES wrong passwords in a row an ID is locked out, starting at
+ * one second and doubling with every further failure up to MAX_LOCKOUT_MS. A successful
+ * login resets it. Locked-out attempts are rejected before any hashing is done.
+ *
+ * Thread-safe; logins may be verified off the FX thread.
+ */
+final class LoginGuard {
+    private static final int CACHE_CAPACITY = 256;
+    private static final int MAX_FAILURES = 5;
+    private static final long BASE_LOCKOUT_MS = 1_000;
+    private static final long MAX_LOCKOUT_MS = 5 * 60_000;
+    private static final int TRACKED_IDS = 10_000;
+    // Checked against for unknown IDs (hashed once, when the class loads)
+    private static final String DUMMY_HASH = PasswordHasher.hash("not a password");
+
+    private final Mac mac;
+
+    private final Map<String, byte[]> verified = new LinkedHashMap<String, byte[]>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
+
+    private static final class Attempts {
+        int failures;
+        long lockedUntil;
+    }
+
+    private final Map<String, Attempts> attempts = new LinkedHashMap<String, Attempts>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Attempts> eldest) {
+            return size() > TRACKED_IDS;
+        }
+    };
+
+    LoginGuard() {
+        byte[] key = new byte[32];
+        new SecureRandom().nextBytes(key);
+        try {
+            mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    /** Milliseconds until the ID may try again, or 0 if it is not locked out. */
+    synchronized long lockoutRemaining(String id) {
+        Attempts a = attempts.get(id);
+        return a == null ? 0 : Math.max(0, a.lockedUntil - System.currentTimeMillis());
+    }
+
+    /**
+     * Checks a password for an ID, using the cache when possible, and updates the cache
+     * and the throttle. A locked-out ID is rejected without checking.
+     * @param stored the user's stored hash, or null for an unknown ID
+     */
+    boolean verify(String id, String password, String stored) {
+        if (lockoutRemaining(id) > 0) return false;
+
+        byte[] token = stored != null ? token(stored, password) : null;
+        synchronized (this) {
+            byte[] cached = verified.get(id);
+            if (cached != null && token != null && MessageDigest.isEqual(cached, token)) {
+                attempts.remove(id);
+                return true;
+            }
+        }
+
+        // Unknown IDs still pay for a full check, so timing does not reveal which IDs exist
+        boolean ok = PasswordHasher.verify(password, stored != null ? stored : DUMMY_HASH) && stored != null;
+        synchronized (this) {
+            if (ok) {
+                verified.put(id, token);
+                attempts.remove(id);
+            } else {
+                verified.remove(id);
+                recordFailure(id);
+            }
+        }
+        return ok;
+    }
+
+    private void recordFailure(String id) {
+        Attempts a = attempts.computeIfAbsent(id, k -> new Attempts());
+        a.failures++;
+        if (a.failures >= MAX_FAILURES) {
+            int extra = Math.min(a.failures - MAX_FAILURES, 20);
+            a.lockedUntil = System.currentTimeMillis() + Math.min(BASE_LOCKOUT_MS << extra, MAX_LOCKOUT_MS);
+        }
+    }
+
+    private byte[] token(String stored, String password) {
+        synchronized (mac) {
+            mac.update(stored.getBytes(StandardCharsets.UTF_8));
+            mac.update((byte) 0);
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
\ No newline at end of file
@@ -1,12 +1,38 @@
 package application.model;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableSet;
 
 public class Menu {
     private Map<String, MenuItem> items;
     private static final String MENU_FILE = "menu_data.csv"; 
+    private static final String HEADER = "Name,Price,Category,Description,Ingredients";
+    private static final String IMAGE_SCHEMA = "SDSSS"; // Same columns, see BinarySnapshot
+
+    // Names of menu items changed since the last save. Items are read-only once loaded, so
+    // for now only a new default menu is ever saved.
+    private final Set<String> dirtyItems = new HashSet<>();
+    private boolean dirty = false;
+
+    // Reverse index: ingredient id -> menu items whose recipe uses it (built by bind)
+    private Inventory inventory;
+    private final List<List<MenuItem>> dependents = new ArrayList<>();
+    private final ObservableSet<MenuItem> availableItems = FXCollections.observableSet(new HashSet<>());
+
+    // Category -> items in menu file order; categories in order of first appearance
+    private final Map<String, List<MenuItem>> byCategory = new LinkedHashMap<>();
+    private int version = 0; // Bumped whenever an item is added or replaced
+    private final List<MenuItem> changes = new ArrayList<>(); // Item registered at each version step
 
     public Menu() {
         this.items = new HashMap<>();
@@ -15,19 +41,52 @@ public class Menu {
     
     public Map<String, MenuItem> getItems() { return items; }
 
+    // --- Categories ---
+
+    /** Categories as they first appear in the menu data. */
+    public List<String> getCategories() {
+        return Collections.unmodifiableList(new ArrayList<>(byCategory.keySet()));
+    }
+
+    /** Items of one category in menu order (empty for an unknown category). */
+    public List<MenuItem> getItemsInCategory(String category) {
+        List<MenuItem> list = byCategory.get(category);
+        return list == null ? Collections.emptyList() : Collections.unmodifiableList(list);
+    }
+
+    /** Changes whenever items are added or replaced, so views can tell if they are stale. */
+    public int getVersion() { return version; }
+
+    /** Items added or replaced after the given version, each once and as they are now. */
+    public List<MenuItem> getChangedSince(int since) {
+        Map<String, MenuItem> latest = new LinkedHashMap<>();
+        for (MenuItem item : changes.subList(Math.max(since, 0), changes.size())) {
+            latest.put(item.getName(), items.get(item.getName()));
+        }
+        return new ArrayList<>(latest.values());
+    }
+
     public void loadMenu() {
-        File file = new File(MENU_FILE);
-        if (!file.exists()) {
-            initializeDefaultMenu();
+        // A current binary image skips CSV parsing altogether
+        BinarySnapshot.Reader image = BinarySnapshot.open(MENU_FILE, IMAGE_SCHEMA);
+        if (image != null && image.rowCount() > 0) {
+            for (int row = 0; row < image.rowCount(); row++) {
+                register(MenuItem.read(image, row));
+            }
             return;
         }
-        
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            br.readLine(); 
-            String line;
-            while ((line = br.readLine()) != null) {
-                MenuItem item = MenuItem.fromCSVString(line);
-                if (item != null) this.items.put(item.getName(), item);
+
+        // Verifies the checksum trailer and falls back to the .bak generation if needed
+        try {
+            CsvReader records = CsvFiles.openRecords(MENU_FILE);
+            if (records == null) {
+                initializeDefaultMenu();
+                return;
+            }
+            records.nextRecord(); // Skip header
+            while (records.nextRecord()) {
+                MenuItem item = MenuItem.read(records);
+                if (item != null) register(item);
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -36,15 +95,93 @@ public class Menu {
         if (this.items.isEmpty()) initializeDefaultMenu();
     }
 
+    /** Queues a background write of the menu file (never blocks on disk I/O). */
     public void saveMenu() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(MENU_FILE))) {
-            pw.println("Name,Price,Category,Description,Ingredients"); 
-            for (MenuItem item : items.values()) {
-                pw.println(item.toCSVString());
+        PersistenceService.getInstance().write(snapshot());
+    }
+
+    /** Copies the current rows for the persistence thread; the store counts as clean afterwards. */
+    PersistenceService.Snapshot snapshot() {
+        List<String> rows = new ArrayList<>(items.size());
+        BinarySnapshot.Writer image = BinarySnapshot.ENABLED ? new BinarySnapshot.Writer(IMAGE_SCHEMA) : null;
+        for (MenuItem item : items.values()) {
+            rows.add(item.toCSVString());
+            if (image != null) item.writeTo(image);
+        }
+        dirtyItems.clear();
+        dirty = false;
+        return new PersistenceService.Snapshot(MENU_FILE, HEADER, rows)
+                .withImage(image != null ? image.toByteArray() : null);
+    }
+
+    // --- Inventory Binding ---
+
+    /**
+     * Compiles every recipe against the inventory, indexes items by ingredient and keeps
+     * each item's max servings and the available-items set current: a stock change only
+     * recomputes the items that use the changed ingredients.
+     */
+    public void bind(Inventory inventory) {
+        this.inventory = inventory;
+        for (MenuItem item : items.values()) {
+            RecipePlan plan = RecipePlan.compile(item.getIngredientsConsumed(), inventory);
+            item.setPlan(plan);
+            for (int i = 0; i < plan.size(); i++) {
+                int id = plan.ingredientId(i);
+                while (dependents.size() <= id) dependents.add(new ArrayList<>());
+                dependents.get(id).add(item);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            refreshServings(item);
+        }
+        inventory.addStockListener(this::onStockChanged);
+    }
+
+    /** Items that can currently be served at least once (updated on the FX thread). */
+    public ObservableSet<MenuItem> getAvailableItems() {
+        return FXCollections.unmodifiableObservableSet(availableItems);
+    }
+
+    private void onStockChanged(List<Ingredient> changed) {
+        for (Ingredient ingredient : changed) {
+            int id = inventory.indexOf(ingredient.getName());
+            if (id < 0 || id >= dependents.size()) continue;
+            for (MenuItem item : dependents.get(id)) {
+                refreshServings(item);
+            }
+        }
+    }
+
+    private void refreshServings(MenuItem item) {
+        RecipePlan plan = item.getPlan();
+        int servings = plan.isComplete() ? MenuItem.UNLIMITED : 0;
+        for (int i = 0; servings > 0 && i < plan.size(); i++) {
+            int quantity = plan.quantity(i);
+            if (quantity <= 0) continue;
+            servings = Math.min(servings, inventory.getIngredient(plan.ingredientId(i)).getStockLevel() / quantity);
+        }
+        item.setMaxServings(servings);
+        if (servings > 0) availableItems.add(item);
+        else availableItems.remove(item);
+    }
+
+    // --- Dirty Tracking ---
+
+    /** True if anything changed since the last successful save. */
+    public boolean isDirty() { return dirty; }
+
+    /** Number of menu items modified since the last save. */
+    public int getDirtyCount() { return dirtyItems.size(); }
+
+    private void register(MenuItem item) {
+        MenuItem old = this.items.put(item.getName(), item);
+        if (old != null) {
+            List<MenuItem> oldList = byCategory.get(old.getCategory());
+            oldList.remove(old);
+            if (oldList.isEmpty()) byCategory.remove(old.getCategory());
         }
+        byCategory.computeIfAbsent(item.getCategory(), k -> new ArrayList<>()).add(item);
+        changes.add(item);
+        version++;
     }
     
     private void initializeDefaultMenu() {
@@ -85,6 +222,6 @@ public class Menu {
     }
 
     private void createItem(String name, double price, String category, String desc, Map<String, Integer> ingredients) {
-        this.items.put(name, new MenuItem(name, price, category, desc, ingredients));
+        register(new MenuItem(name, price, category, desc, ingredients));
     }
 }
\ No newline at end of file
@@ -1,25 +1,53 @@
 package application.model;
 
+import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.Map;
 
-import javafx.beans.property.SimpleDoubleProperty;
-import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.ReadOnlyBooleanProperty;
+import javafx.beans.property.ReadOnlyBooleanWrapper;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
 
 public class MenuItem {
-    private final SimpleStringProperty name;
-    private final SimpleDoubleProperty price;
-    private final SimpleStringProperty category; // <--- NEW FIELD
-    private final SimpleStringProperty description;
+    /** Max servings reported for an item whose recipe uses no ingredients. */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private final String name;
+    private final long price; // Centavos (see Money)
+    private final String category; // <--- NEW FIELD
+    private final String description;
     
     // Key: Ingredient Name, Value: Quantity
     private Map<String, Integer> ingredientsConsumed;
+    // Same recipe resolved to inventory ids (set by Menu.bind)
+    private RecipePlan plan;
+    // Kept up to date by Menu whenever one of this item's ingredients changes
+    private int maxServings = 0;
+    private boolean available = true;
+
+    // JavaFX views, created the first time a screen binds to them
+    private ReadOnlyStringWrapper nameView;
+    private ReadOnlyDoubleWrapper priceView;
+    private ReadOnlyStringWrapper categoryView;
+    private ReadOnlyStringWrapper descriptionView;
+    private ReadOnlyIntegerWrapper maxServingsView;
+    private ReadOnlyBooleanWrapper availableView;
 
     public MenuItem(String name, double price, String category, String description, Map<String, Integer> ingredientsConsumed) {
-        this.name = new SimpleStringProperty(name);
-        this.price = new SimpleDoubleProperty(price);
-        this.category = new SimpleStringProperty(category);
-        this.description = new SimpleStringProperty(description);
+        this(name, Money.toCentavos(price), category, description, ingredientsConsumed);
+    }
+
+    /** Same, with the price given exactly in centavos (an int literal also selects this one). */
+    public MenuItem(String name, long priceCentavos, String category, String description, Map<String, Integer> ingredientsConsumed) {
+        this.name = name;
+        this.price = priceCentavos;
+        this.category = category;
+        this.description = description;
         this.ingredientsConsumed = ingredientsConsumed;
     }
 
@@ -45,50 +73,121 @@ public class MenuItem {
     
     public String toCSVString() {
         // Format: Name,Price,Category,Description,Ingredients
-        return name.get() + "," + price.get() + "," + category.get() + "," + description.get().replace(",", ";") + "," + ingredientsMapToString();
+        return CsvReader.quote(name) + "," + BigDecimal.valueOf(price, 2).toPlainString() + "," + CsvReader.quote(category) + ","
+                + CsvReader.quoteAlways(description) + "," + CsvReader.quote(ingredientsMapToString());
     }
 
     public static MenuItem fromCSVString(String csvLine) {
-        // Now splits into 5 parts
-        String[] parts = csvLine.split(",", 5); 
-        if (parts.length != 5) return null;
-        
+        CsvReader r = new CsvReader(csvLine);
+        return r.nextRecord() ? read(r) : null;
+    }
+
+    /** Appends this item as one row of a binary image (schema "SDSSS"). */
+    void writeTo(BinarySnapshot.Writer image) {
+        image.putString(name).putDouble(getPrice()).putString(category)
+             .putString(description).putString(ingredientsMapToString());
+    }
+
+    static MenuItem read(BinarySnapshot.Reader image, int row) {
+        return new MenuItem(image.getString(row, 0), image.getDouble(row, 1), image.getString(row, 2),
+                image.getString(row, 3), parseIngredients(image.getString(row, 4)));
+    }
+
+    /** Reads one Name,Price,Category,Description,Ingredients record; null if it is malformed. */
+    static MenuItem read(CsvReader r) {
         try {
-            String name = parts[0].trim();
-            double price = Double.parseDouble(parts[1].trim());
-            String category = parts[2].trim(); // <--- Parse Category
-            String description = parts[3].trim().replace(";", ","); 
-            String ingredientsString = parts[4].trim();
-            
-            Map<String, Integer> ingredients = new HashMap<>();
-            if (!ingredientsString.isEmpty()) {
-                String[] ingredientEntries = ingredientsString.split("\\|");
-                for (String entry : ingredientEntries) {
-                    String[] kv = entry.split(":");
-                    if (kv.length == 2) {
-                        ingredients.put(kv[0].trim(), Integer.parseInt(kv[1].trim()));
-                    }
-                }
-            }
+            String name = r.nextString();
+            long price = Money.parse(r.nextString()); // Exact to the centavo, never a double
+            String category = r.nextString(); // <--- Parse Category
+            String description = r.nextString();
+            // Older files stored commas in descriptions as ';' instead of quoting the field
+            if (!r.wasQuoted()) description = description.replace(";", ","); 
+            Map<String, Integer> ingredients = parseIngredients(r.nextString());
             return new MenuItem(name, price, category, description, ingredients);
         } catch (NumberFormatException e) {
-            System.err.println("Error parsing menu item: " + csvLine);
+            System.err.println("Error parsing menu item: " + r.currentRecord());
             return null;
+        } catch (ArithmeticException e) {
+            System.err.println("Price out of range in menu item: " + r.currentRecord());
+            return null;
+        } catch (IllegalStateException e) {
+            return null; // Too few fields
+        }
+    }
+
+    /** Parses "Name:Qty|Name:Qty" without regex splitting; entries that are not Name:Qty are skipped. */
+    private static Map<String, Integer> parseIngredients(String s) {
+        Map<String, Integer> ingredients = new HashMap<>();
+        int start = 0;
+        while (start < s.length()) {
+            int bar = s.indexOf('|', start);
+            if (bar < 0) bar = s.length();
+            int colon = s.indexOf(':', start);
+            if (colon >= 0 && colon < bar) {
+                int extra = s.indexOf(':', colon + 1);
+                if (extra < 0 || extra >= bar) {
+                    ingredients.put(s.substring(start, colon).trim(), Integer.parseInt(s.substring(colon + 1, bar).trim()));
+                }
+            }
+            start = bar + 1;
         }
+        return ingredients;
     }
 
     // --- Getters ---
-    public String getName() { return name.get(); }
-    public SimpleStringProperty nameProperty() { return name; }
-    
-    public double getPrice() { return price.get(); }
-    public SimpleDoubleProperty priceProperty() { return price; }
+    public String getName() { return name; }
+    public double getPrice() { return price / 100.0; }
+    /** Exact price in centavos; use this for any arithmetic. */
+    public long getPriceCentavos() { return price; }
+    public String getCategory() { return category; } // <--- Getter
+    public String getDescription() { return description; }
 
-    public String getCategory() { return category.get(); } // <--- Getter
-    public SimpleStringProperty categoryProperty() { return category; }
+    public Map<String, Integer> getIngredientsConsumed() { return ingredientsConsumed; }
 
-    public String getDescription() { return description.get(); }
-    public SimpleStringProperty descriptionProperty() { return description; }
+    public RecipePlan getPlan() { return plan; }
+    void setPlan(RecipePlan plan) { this.plan = plan; }
 
-    public Map<String, Integer> getIngredientsConsumed() { return ingredientsConsumed; }
+    /** Cached availability against the Cafe's inventory (see Menu.bind). */
+    public boolean isAvailable() { return available; }
+
+    /** How many servings the current stock allows: min over the recipe of stock / quantity. */
+    public int getMaxServings() { return maxServings; }
+
+    void setMaxServings(int servings) {
+        this.maxServings = servings;
+        this.available = servings > 0;
+        if (maxServingsView != null) maxServingsView.set(servings);
+        if (availableView != null) availableView.set(available);
+    }
+
+    // --- Properties (created on first use, FX thread) ---
+    public ReadOnlyStringProperty nameProperty() {
+        if (nameView == null) nameView = new ReadOnlyStringWrapper(this, "name", name);
+        return nameView.getReadOnlyProperty();
+    }
+
+    public ReadOnlyDoubleProperty priceProperty() {
+        if (priceView == null) priceView = new ReadOnlyDoubleWrapper(this, "price", getPrice());
+        return priceView.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty categoryProperty() {
+        if (categoryView == null) categoryView = new ReadOnlyStringWrapper(this, "category", category);
+        return categoryView.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty descriptionProperty() {
+        if (descriptionView == null) descriptionView = new ReadOnlyStringWrapper(this, "description", description);
+        return descriptionView.getReadOnlyProperty();
+    }
+
+    public ReadOnlyBooleanProperty availableProperty() {
+        if (availableView == null) availableView = new ReadOnlyBooleanWrapper(this, "available", available);
+        return availableView.getReadOnlyProperty();
+    }
+
+    public ReadOnlyIntegerProperty maxServingsProperty() {
+        if (maxServingsView == null) maxServingsView = new ReadOnlyIntegerWrapper(this, "maxServings", maxServings);
+        return maxServingsView.getReadOnlyProperty();
+    }
 }
\ No newline at end of file
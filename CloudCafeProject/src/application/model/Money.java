@@ -0,0 +1,44 @@
+package application.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Peso amounts as whole centavos in a long. All arithmetic on prices, discounts and
+ * totals is done in centavos; doubles and BigDecimal only appear at the edges (parsing
+ * prices from data files and showing amounts on screen).
+ */
+public final class Money {
+    /** VIP members get this percentage off the subtotal. */
+    public static final int VIP_DISCOUNT_PERCENT = 10;
+    /** One loyalty point is earned per this many centavos paid (₱10). */
+    public static final long CENTAVOS_PER_POINT = 1_000;
+
+    private Money() {}
+
+    /** Converts a peso amount to centavos, rounding half up to the nearest centavo. */
+    public static long toCentavos(double pesos) {
+        return Math.round(pesos * 100);
+    }
+
+    /** Parses a peso amount such as "135" or "89.50" exactly. */
+    public static long parse(String pesos) {
+        return new BigDecimal(pesos.trim()).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    /** Percentage of an amount, rounded half up to the nearest centavo. */
+    public static long percentOf(long centavos, int percent) {
+        return (centavos * percent + 50) / 100;
+    }
+
+    /** Formats centavos as "₱1234.50" (negative amounts as "-₱..."). */
+    public static String format(long centavos) {
+        StringBuilder sb = new StringBuilder(16);
+        if (centavos < 0) sb.append('-');
+        long abs = Math.abs(centavos);
+        sb.append('₱').append(abs / 100);
+        long cents = abs % 100;
+        sb.append('.').append((char) ('0' + cents / 10)).append((char) ('0' + cents % 10));
+        return sb.toString();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,51 @@
+package application.model;
+
+import java.util.Arrays;
+
+/**
+ * Total ingredient demand of a whole cart, aggregated per ingredient id so that items
+ * sharing Milk or Espresso Beans are validated together. Build one with
+ * Inventory.newOrder(), add every cart line, then pass it to Inventory.reserve().
+ */
+public final class OrderDemand {
+    private int[] amounts;      // Indexed by ingredient id
+    private int[] touched;      // Ids with a non-zero amount
+    private int touchedCount = 0;
+    private boolean complete = true;
+    private Ingredient shortfall;
+
+    OrderDemand(int ingredientCount) {
+        this.amounts = new int[Math.max(ingredientCount, 1)];
+        this.touched = new int[8];
+    }
+
+    /** Adds the ingredients for the given number of servings of a compiled recipe. */
+    public void add(RecipePlan plan, int servings) {
+        if (!plan.isComplete()) complete = false;
+        for (int i = 0; i < plan.size(); i++) {
+            int id = plan.ingredientId(i);
+            if (id >= amounts.length) amounts = Arrays.copyOf(amounts, Math.max(id + 1, amounts.length * 2));
+            if (amounts[id] == 0) {
+                if (touchedCount == touched.length) touched = Arrays.copyOf(touched, touchedCount * 2);
+                touched[touchedCount++] = id;
+            }
+            amounts[id] += plan.quantity(i) * servings;
+        }
+    }
+
+    /** Puts the ids in ascending order (the lock order used by Inventory.reserve). */
+    void sortIds() {
+        Arrays.sort(touched, 0, touchedCount);
+    }
+
+    public int size() { return touchedCount; }
+    public int ingredientId(int i) { return touched[i]; }
+    public int amountOf(int ingredientId) { return ingredientId < amounts.length ? amounts[ingredientId] : 0; }
+
+    /** False if some recipe uses an ingredient that is not stocked at all. */
+    public boolean isComplete() { return complete; }
+
+    /** The ingredient that made the last reserve() fail, or null. */
+    public Ingredient getShortfall() { return shortfall; }
+    void setShortfall(Ingredient shortfall) { this.shortfall = shortfall; }
+}
@@ -0,0 +1,63 @@
+package application.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One completed sale as stored in the SalesLedger. Amounts are whole centavos so that
+ * totals summed over many orders do not pick up floating-point drift.
+ */
+public final class OrderRecord {
+
+    /** One cart row: a menu item, how many were ordered and the unit price at the time. */
+    public static final class Line {
+        private final String itemName;
+        private final int quantity;
+        private final long unitPriceCentavos;
+
+        public Line(String itemName, int quantity, long unitPriceCentavos) {
+            this.itemName = itemName;
+            this.quantity = quantity;
+            this.unitPriceCentavos = unitPriceCentavos;
+        }
+
+        public String getItemName() { return itemName; }
+        public int getQuantity() { return quantity; }
+        public long getUnitPriceCentavos() { return unitPriceCentavos; }
+        public long getLineTotalCentavos() { return unitPriceCentavos * quantity; }
+    }
+
+    private final long orderId;
+    private final long timestamp;      // Epoch millis
+    private final String tableId;
+    private final String customerId;   // Empty for walk-in guests
+    private final List<Line> lines;
+    private final long discountCentavos;
+    private final long totalCentavos;
+
+    public OrderRecord(long orderId, long timestamp, String tableId, String customerId,
+                       List<Line> lines, long discountCentavos, long totalCentavos) {
+        this.orderId = orderId;
+        this.timestamp = timestamp;
+        this.tableId = tableId == null ? "" : tableId;
+        this.customerId = customerId == null ? "" : customerId;
+        this.lines = Collections.unmodifiableList(new ArrayList<>(lines));
+        this.discountCentavos = discountCentavos;
+        this.totalCentavos = totalCentavos;
+    }
+
+    public long getOrderId() { return orderId; }
+    public long getTimestamp() { return timestamp; }
+    public String getTableId() { return tableId; }
+    public String getCustomerId() { return customerId; }
+    public List<Line> getLines() { return lines; }
+    public long getDiscountCentavos() { return discountCentavos; }
+    public long getTotalCentavos() { return totalCentavos; }
+
+    public long getSubtotalCentavos() {
+        long subtotal = 0;
+        for (Line line : lines) subtotal += line.getLineTotalCentavos();
+        return subtotal;
+    }
+}
\ No newline at end of file
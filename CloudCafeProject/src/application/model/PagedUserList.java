@@ -0,0 +1,49 @@
+package application.model;
+
+import java.util.AbstractList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only list view over all users that loads them a page at a time from the
+ * UserManager. A TableView only asks for the rows it is showing, so scrolling through a
+ * large loyalty base only ever materializes a few pages. Wrap it with
+ * FXCollections.observableList and turn off column sorting (the list cannot be sorted).
+ */
+public class PagedUserList extends AbstractList<User> {
+    private static final int PAGE_SIZE = 100;
+    private static final int MAX_PAGES = 8;
+
+    private final UserManager userManager;
+    private final int size;
+    private final Map<Integer, List<User>> pages = new LinkedHashMap<Integer, List<User>>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, List<User>> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
+
+    public PagedUserList(UserManager userManager) {
+        this.userManager = userManager;
+        this.size = userManager.getUserCount(); // Fixed for the lifetime of the view
+    }
+
+    @Override
+    public User get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        int page = index / PAGE_SIZE;
+        List<User> rows = pages.get(page);
+        if (rows == null) {
+            rows = userManager.getUsersPage(page * PAGE_SIZE, PAGE_SIZE);
+            pages.put(page, rows);
+        }
+        int offset = index - page * PAGE_SIZE;
+        return offset < rows.size() ? rows.get(offset) : null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+}
\ No newline at end of file
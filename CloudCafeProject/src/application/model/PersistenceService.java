@@ -0,0 +1,243 @@
+package application.model;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Single background writer for every data file, so button handlers never wait on disk I/O.
+ *
+ * Callers capture the model state on their own thread (see Snapshot) and hand it over.
+ * Snapshot writes are coalesced per file: if a newer snapshot arrives before the old one
+ * was written, only the newest is written. Journal appends are written in order.
+ */
+public class PersistenceService {
+    private static final PersistenceService INSTANCE = new PersistenceService();
+
+    /** Immutable copy of one store's rows, captured on the caller's thread. */
+    public static class Snapshot {
+        private final String fileName;
+        private final String header;
+        private final List<String> rows;
+        private final int recordCount;
+        private final Supplier<Snapshot> producer; // Set for deferred snapshots only
+        private byte[] image; // Optional BinarySnapshot of the same rows
+
+        public Snapshot(String fileName, String header, List<String> rows) {
+            this(fileName, header, rows, rows.size(), null);
+        }
+
+        private Snapshot(String fileName, String header, List<String> rows, int recordCount, Supplier<Snapshot> producer) {
+            this.fileName = fileName;
+            this.header = header;
+            this.rows = rows;
+            this.recordCount = recordCount;
+            this.producer = producer;
+        }
+
+        /**
+         * A snapshot whose rows are produced on the writer thread, for stores too large to
+         * copy on the caller's thread. The producer must only use state it captured itself.
+         */
+        static Snapshot deferred(String fileName, int recordCount, Supplier<Snapshot> producer) {
+            return new Snapshot(fileName, null, null, recordCount, producer);
+        }
+
+        public String getFileName() { return fileName; }
+        public int getRecordCount() { return recordCount; }
+
+        /** Attaches a binary image to be written after the CSV file. */
+        Snapshot withImage(byte[] image) {
+            this.image = image;
+            return this;
+        }
+    }
+
+    /** One checkpoint() call: the files it still waits for and the bytes written for it so far. */
+    private static final class Checkpoint {
+        final Set<String> files = new HashSet<>();
+        final CompletableFuture<Long> done = new CompletableFuture<>();
+        long bytes = 0;
+    }
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "cafe-persistence");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Latest not-yet-written snapshot per file (guarded by this)
+    private final Map<String, Snapshot> pending = new LinkedHashMap<>();
+    // Highest journal sequence covered by the pending snapshots, or -1 (guarded by this)
+    private long pendingCheckpointSeq = -1;
+    // Checkpoint calls whose snapshots are not all on disk yet (guarded by this)
+    private final List<Checkpoint> pendingCheckpoints = new ArrayList<>();
+
+    // Writer-thread state
+    private long coveredSeq = -1;
+
+    private PersistenceService() {}
+
+    public static PersistenceService getInstance() { return INSTANCE; }
+
+    // --- Submission (any thread) ---
+
+    /** Queues a snapshot write; a newer snapshot of the same file replaces a queued one. */
+    public void write(Snapshot snapshot) {
+        synchronized (this) {
+            pending.put(snapshot.fileName, snapshot);
+        }
+        writer.execute(this::drain);
+    }
+
+    /**
+     * Queues snapshots that together cover every journal entry up to journal.getLastSeq();
+     * once they are on disk the journal file is truncated.
+     * @return completes with the bytes written for these snapshots once they are all on
+     *         disk (a snapshot replaced by a newer one of the same file counts the newer one).
+     */
+    public CompletableFuture<Long> checkpoint(List<Snapshot> snapshots, TransactionJournal journal) {
+        long seq = journal.getLastSeq();
+        Checkpoint call = new Checkpoint();
+        synchronized (this) {
+            for (Snapshot s : snapshots) {
+                pending.put(s.fileName, s);
+                call.files.add(s.fileName);
+            }
+            pendingCheckpointSeq = Math.max(pendingCheckpointSeq, seq);
+            pendingCheckpoints.add(call);
+        }
+        writer.execute(this::drain);
+        return call.done;
+    }
+
+    /** Queues an ordered journal append, skipped if a checkpoint already covers it. */
+    void append(String fileName, String text, long seq) {
+        writer.execute(() -> {
+            if (seq <= coveredSeq) return;
+            appendNow(fileName, text.getBytes(StandardCharsets.UTF_8));
+        });
+    }
+
+    /** Queues an append to a log that is never checkpointed (e.g. the sales ledger). */
+    void append(String fileName, byte[] data) {
+        writer.execute(() -> appendNow(fileName, data));
+    }
+
+    /** Blocks until everything submitted so far has been written. */
+    public void flush() {
+        try {
+            writer.submit(() -> {}).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Writes everything still queued and stops the writer thread (call on application exit). */
+    public void shutdown() {
+        flush();
+        writer.shutdown();
+        try {
+            writer.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // --- Writer thread ---
+
+    private void appendNow(String fileName, byte[] data) {
+        try (FileOutputStream out = new FileOutputStream(fileName, true)) {
+            out.write(data);
+            out.getChannel().force(false); // Appended logs are the durability point between snapshots
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void drain() {
+        List<Snapshot> batch;
+        List<Checkpoint> calls;
+        long seq;
+        synchronized (this) {
+            if (pending.isEmpty() && pendingCheckpointSeq < 0 && pendingCheckpoints.isEmpty()) return; // Coalesced into an earlier drain
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+            seq = pendingCheckpointSeq;
+            pendingCheckpointSeq = -1;
+            calls = new ArrayList<>(pendingCheckpoints);
+            pendingCheckpoints.clear();
+        }
+
+        Map<String, Long> written = new HashMap<>(); // File name -> bytes, for this drain
+        boolean failed = false;
+        for (Snapshot queued : batch) {
+            Snapshot s = queued;
+            try {
+                if (s.producer != null) s = s.producer.get();
+                written.put(s.fileName, CsvFiles.write(s.fileName, s.header, s.rows));
+            } catch (IOException | UncheckedIOException e) {
+                e.printStackTrace();
+                failed = true;
+                synchronized (this) {
+                    pending.putIfAbsent(queued.fileName, queued); // Retried by the next drain
+                }
+                continue;
+            }
+            if (s.image != null) {
+                // Best effort: a missing or stale image just means the CSV is loaded instead
+                try {
+                    written.merge(s.fileName, CsvFiles.writeAtomically(BinarySnapshot.imageName(s.fileName), s.image), Long::sum);
+                } catch (IOException e) {
+                    System.err.println("Could not write binary snapshot of " + s.fileName + ": " + e.getMessage());
+                }
+            }
+        }
+
+        // Each checkpoint call is done once all of its files are written
+        List<Checkpoint> unfinished = new ArrayList<>();
+        for (Checkpoint call : calls) {
+            call.files.removeIf(file -> {
+                Long bytes = written.get(file);
+                if (bytes == null) return false;
+                call.bytes += bytes;
+                return true;
+            });
+            if (call.files.isEmpty()) call.done.complete(call.bytes);
+            else unfinished.add(call);
+        }
+        if (!unfinished.isEmpty()) {
+            synchronized (this) {
+                pendingCheckpoints.addAll(0, unfinished);
+            }
+        }
+
+        if (seq < 0) return;
+        if (failed) {
+            // Keep the journal until the snapshots covering it are safely on disk
+            synchronized (this) {
+                pendingCheckpointSeq = Math.max(pendingCheckpointSeq, seq);
+            }
+            return;
+        }
+        coveredSeq = Math.max(coveredSeq, seq);
+        File journalFile = new File(TransactionJournal.JOURNAL_FILE);
+        if (journalFile.exists() && !journalFile.delete()) {
+            System.err.println("Could not clear " + TransactionJournal.JOURNAL_FILE);
+        }
+    }
+}
\ No newline at end of file
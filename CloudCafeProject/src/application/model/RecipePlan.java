@@ -0,0 +1,49 @@
+package application.model;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A MenuItem's recipe compiled against an Inventory: parallel arrays of ingredient ids
+ * (see Inventory.indexOf) and per-serving quantities. Deducting an order walks these
+ * arrays once instead of doing a map lookup and an Integer unbox per ingredient per unit.
+ */
+public final class RecipePlan {
+    private final int[] ingredientIds;
+    private final int[] quantities;
+    private final boolean complete; // False if the recipe names an ingredient the inventory lacks
+
+    private RecipePlan(int[] ingredientIds, int[] quantities, boolean complete) {
+        this.ingredientIds = ingredientIds;
+        this.quantities = quantities;
+        this.complete = complete;
+    }
+
+    /** Resolves every ingredient name of the recipe to its inventory id. */
+    static RecipePlan compile(Map<String, Integer> recipe, Inventory inventory) {
+        int[] ids = new int[recipe.size()];
+        int[] qty = new int[recipe.size()];
+        int n = 0;
+        boolean complete = true;
+        for (Map.Entry<String, Integer> entry : recipe.entrySet()) {
+            int id = inventory.indexOf(entry.getKey());
+            if (id < 0) {
+                complete = false;
+                continue;
+            }
+            ids[n] = id;
+            qty[n] = entry.getValue();
+            n++;
+        }
+        if (n < ids.length) {
+            ids = Arrays.copyOf(ids, n);
+            qty = Arrays.copyOf(qty, n);
+        }
+        return new RecipePlan(ids, qty, complete);
+    }
+
+    public int size() { return ingredientIds.length; }
+    public int ingredientId(int i) { return ingredientIds[i]; }
+    public int quantity(int i) { return quantities[i]; }
+    public boolean isComplete() { return complete; }
+}
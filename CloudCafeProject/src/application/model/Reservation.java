@@ -0,0 +1,54 @@
+package application.model;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+
+/** One booking of a table: who, for how many people, from when and for how long. */
+public class Reservation {
+    private final String tableId;
+    private final String customerId;
+    private final String customerName;
+    private final LocalDateTime start;
+    private final int minutes;
+    private final int partySize;
+
+    public Reservation(String tableId, String customerId, String customerName, LocalDateTime start, int minutes, int partySize) {
+        this.tableId = tableId;
+        this.customerId = customerId;
+        this.customerName = customerName;
+        this.start = start;
+        this.minutes = minutes;
+        this.partySize = partySize;
+    }
+
+    /** True if the booking has begun but not yet ended at the given time. */
+    public boolean isActiveAt(LocalDateTime time) {
+        return !time.isBefore(start) && time.isBefore(getEnd());
+    }
+
+    // --- Persistence ---
+    public String toCSV() {
+        return CsvReader.quote(tableId) + "," + CsvReader.quote(customerId) + "," + CsvReader.quote(customerName)
+                + "," + start + "," + minutes + "," + partySize;
+    }
+
+    /** Reads one Table,CustomerID,Customer,Start,Minutes,PartySize record; null if it is malformed. */
+    static Reservation read(CsvReader r) {
+        try {
+            Reservation res = new Reservation(r.nextString(), r.nextString(), r.nextString(),
+                    LocalDateTime.parse(r.nextString()), r.nextInt(), r.nextInt());
+            return res.minutes > 0 && res.partySize > 0 ? res : null;
+        } catch (NumberFormatException | DateTimeParseException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    // --- Getters ---
+    public String getTableId() { return tableId; }
+    public String getCustomerId() { return customerId; }
+    public String getCustomerName() { return customerName; }
+    public LocalDateTime getStart() { return start; }
+    public LocalDateTime getEnd() { return start.plusMinutes(minutes); }
+    public int getMinutes() { return minutes; }
+    public int getPartySize() { return partySize; }
+}
\ No newline at end of file
@@ -0,0 +1,228 @@
+package application.model;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Table bookings by time, kept in "reservations.csv".
+ *
+ * Time is cut into SLOT_MINUTES slots from midnight today up to HORIZON_DAYS ahead. Each table has a calendar, a BitSet with one bit per slot, and a
+ * booking sets the bits of every slot it touches. Whether a table is free for an interval
+ * is then a single nextSetBit() over a few dozen words, so a question like "any 4-seat
+ * table at 19:00 for 90 minutes" costs one such call per table, whatever the number of
+ * bookings. When the date changes, the first call of the new day rolls the origin forward:
+ * every calendar is shifted by the days that passed, so the horizon always reaches
+ * HORIZON_DAYS past today, and bookings that have ended are dropped.
+ *
+ * A booking only reserves calendar time; the table's live status is still changed
+ * through Table.reserve() and friends. Thread-safe.
+ */
+public class ReservationBook {
+    public static final int SLOT_MINUTES = 15;
+    public static final int HORIZON_DAYS = 28;
+    private static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    private static final int SLOT_COUNT = HORIZON_DAYS * SLOTS_PER_DAY;
+
+    private static final String RESERVATION_FILE = "reservations.csv";
+    private static final String HEADER = "Table,CustomerID,Customer,Start,Minutes,PartySize";
+    private static final Comparator<Reservation> BY_START = Comparator.comparing(Reservation::getStart);
+
+    private final TableManager tableManager;
+    private LocalDateTime origin; // Slot 0 starts here: midnight today (guarded by this)
+    private final Map<String, BitSet> calendars = new HashMap<>();
+    private final Map<String, List<Reservation>> byTable = new HashMap<>(); // Sorted by start
+
+    public ReservationBook(TableManager tableManager) {
+        this.tableManager = tableManager;
+        this.origin = LocalDate.now().atStartOfDay();
+        loadReservations();
+    }
+
+    // --- Queries ---
+
+    /** True if the table has no booking overlapping the interval (false outside the horizon). */
+    public synchronized boolean isFree(Table table, LocalDateTime start, int minutes) {
+        rollOver();
+        int from = firstSlot(start), to = endSlot(start, minutes);
+        if (from < 0 || to > SLOT_COUNT || from >= to) return false;
+        return isFree(table.getId(), from, to);
+    }
+
+    /**
+     * Test for "has no booking overlapping the interval", with the slot range worked out
+     * once; cheaper than isFree() when many tables are checked for the same time.
+     */
+    public synchronized Predicate<Table> freeDuring(LocalDateTime start, int minutes) {
+        rollOver();
+        LocalDateTime base = origin;
+        int from = firstSlot(start), to = endSlot(start, minutes);
+        if (from < 0 || to > SLOT_COUNT || from >= to) return t -> false;
+        return t -> {
+            synchronized (this) {
+                // Slots were numbered from base; after a roll-over work them out again
+                return origin == base ? isFree(t.getId(), from, to) : isFree(t, start, minutes);
+            }
+        };
+    }
+
+    /**
+     * True if start falls in a slot that has already ended. book() refuses such starts,
+     * and findFree() offers no tables for them; a start within the current slot is fine.
+     */
+    public synchronized boolean hasPassed(LocalDateTime start) {
+        return firstSlot(start) < firstSlot(LocalDateTime.now());
+    }
+
+    /**
+     * Tables seating at least partySize that are free for the whole interval, in floor
+     * order; none if the start has passed.
+     */
+    public synchronized List<Table> findFree(LocalDateTime start, int minutes, int partySize) {
+        rollOver();
+        List<Table> free = new ArrayList<>();
+        int from = firstSlot(start), to = endSlot(start, minutes);
+        if (from < 0 || to > SLOT_COUNT || from >= to || hasPassed(start)) return free;
+        for (Table t : tableManager.getFloorOrder()) {
+            if (t.getCapacity() >= partySize && isFree(t.getId(), from, to)) free.add(t);
+        }
+        return free;
+    }
+
+    /** The table's bookings that have not ended yet, earliest first. */
+    public synchronized List<Reservation> getReservations(Table table) {
+        rollOver();
+        List<Reservation> list = byTable.get(table.getId());
+        return list == null ? Collections.emptyList() : new ArrayList<>(list);
+    }
+
+    /** Last moment a booking can end (exclusive). */
+    public synchronized LocalDateTime getHorizonEnd() {
+        rollOver();
+        return origin.plusDays(HORIZON_DAYS);
+    }
+
+    // --- Booking ---
+
+    /**
+     * Books the table if it seats the party and is free for the whole interval, which
+     * must lie between now and the horizon.
+     * @return the booking, or null if the table cannot be booked.
+     */
+    public synchronized Reservation book(Table table, User customer, LocalDateTime start, int minutes, int partySize) {
+        if (minutes <= 0 || partySize <= 0 || partySize > table.getCapacity()) return null;
+        rollOver();
+        if (hasPassed(start)) return null;
+        if (!isFree(table, start, minutes)) return null;
+
+        Reservation r = new Reservation(table.getId(), customer.getId(), customer.getName(), start, minutes, partySize);
+        add(r);
+        saveReservations();
+        return r;
+    }
+
+    /** Removes a booking and frees its time. */
+    public synchronized void cancel(Reservation r) {
+        rollOver();
+        List<Reservation> list = byTable.get(r.getTableId());
+        if (list == null || !list.remove(r)) return;
+        int from = Math.max(firstSlot(r.getStart()), 0);
+        int to = Math.min(endSlot(r.getStart(), r.getMinutes()), SLOT_COUNT);
+        if (from < to) calendars.get(r.getTableId()).clear(from, to);
+        saveReservations();
+    }
+
+    // --- Persistence ---
+
+    private void loadReservations() {
+        try {
+            CsvReader records = CsvFiles.openRecords(RESERVATION_FILE);
+            if (records == null) return; // No bookings yet
+            records.nextRecord(); // Skip header
+            LocalDateTime now = LocalDateTime.now();
+            while (records.nextRecord()) {
+                Reservation r = Reservation.read(records);
+                if (r == null || !r.getEnd().isAfter(now) || tableManager.getTable(r.getTableId()) == null) continue;
+                if (endSlot(r.getStart(), r.getMinutes()) > SLOT_COUNT) continue;
+                if (!isFree(r.getTableId(), Math.max(firstSlot(r.getStart()), 0), endSlot(r.getStart(), r.getMinutes()))) {
+                    System.err.println("Skipping overlapping reservation: " + records.currentRecord());
+                    continue;
+                }
+                add(r);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Queues a background write of the reservation file (never blocks on disk I/O). */
+    public synchronized void saveReservations() {
+        List<String> rows = new ArrayList<>();
+        for (List<Reservation> list : byTable.values()) {
+            for (Reservation r : list) rows.add(r.toCSV());
+        }
+        PersistenceService.getInstance().write(new PersistenceService.Snapshot(RESERVATION_FILE, HEADER, rows));
+    }
+
+    // --- Calendar Helpers ---
+
+    /**
+     * Moves the origin to midnight today if the date has changed since it was set: shifts
+     * every calendar down by the slots of the days that passed and drops ended bookings.
+     */
+    private void rollOver() {
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        if (!today.isAfter(origin)) return;
+        long shift = ChronoUnit.DAYS.between(origin, today) * SLOTS_PER_DAY;
+        for (Map.Entry<String, BitSet> e : calendars.entrySet()) {
+            e.setValue(shift >= SLOT_COUNT ? new BitSet(SLOT_COUNT) : e.getValue().get((int) shift, SLOT_COUNT));
+        }
+        origin = today;
+
+        LocalDateTime now = LocalDateTime.now();
+        boolean dropped = false;
+        for (List<Reservation> list : byTable.values()) {
+            dropped |= list.removeIf(r -> !r.getEnd().isAfter(now));
+        }
+        if (dropped) saveReservations();
+    }
+
+    private void add(Reservation r) {
+        List<Reservation> list = byTable.computeIfAbsent(r.getTableId(), k -> new ArrayList<>());
+        int pos = Collections.binarySearch(list, r, BY_START);
+        list.add(pos < 0 ? -pos - 1 : pos, r);
+        int from = Math.max(firstSlot(r.getStart()), 0); // A booking loaded mid-way only blocks what is left
+        calendars.computeIfAbsent(r.getTableId(), k -> new BitSet(SLOT_COUNT))
+                .set(from, endSlot(r.getStart(), r.getMinutes()));
+    }
+
+    private boolean isFree(String tableId, int from, int to) {
+        BitSet calendar = calendars.get(tableId);
+        if (calendar == null) return true;
+        int next = calendar.nextSetBit(from);
+        return next < 0 || next >= to;
+    }
+
+    /** Slot containing the given time (negative before the origin). */
+    private int firstSlot(LocalDateTime time) {
+        return (int) Math.floorDiv(minutesSinceOrigin(time), (long) SLOT_MINUTES);
+    }
+
+    /** One past the last slot an interval touches. */
+    private int endSlot(LocalDateTime start, int minutes) {
+        return (int) -Math.floorDiv(-minutesSinceOrigin(start.plusMinutes(minutes)), (long) SLOT_MINUTES);
+    }
+
+    private long minutesSinceOrigin(LocalDateTime time) {
+        return ChronoUnit.MINUTES.between(origin, time);
+    }
+}
\ No newline at end of file
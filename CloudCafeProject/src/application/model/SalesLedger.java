@@ -0,0 +1,276 @@
+package application.model;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only record of every completed sale, kept in a compact binary file.
+ *
+ * File layout: the 4-byte magic "CCSL" followed by one frame per order:
+ *   int length | payload (length bytes) | int crc32(payload) | int length
+ * The trailing length lets the newest order be read from the end of the file without a
+ * scan, and a frame cut short by a crash is detected and dropped on the next start. A
+ * damaged frame elsewhere is skipped over, never truncated (see FrameScanner).
+ * Appends go through the PersistenceService writer thread like every other file.
+ */
+public class SalesLedger {
+    static final String LEDGER_FILE = "sales.ledger";
+
+    private static final int MAGIC = 0x4343534C; // "CCSL"
+    private static final int FRAME_OVERHEAD = 12;
+    private static final int MAX_PAYLOAD = 1 << 20;
+    // Fixed fields of an order with empty ids and no lines; a run of zero bytes would
+    // otherwise pass for an empty frame, since the CRC of nothing is 0
+    private static final int MIN_PAYLOAD = 38;
+
+    private final String fileName;
+    private final AtomicLong nextOrderId = new AtomicLong(1);
+
+    public SalesLedger() {
+        this(LEDGER_FILE);
+    }
+
+    SalesLedger(String fileName) {
+        this.fileName = fileName;
+        openLedger();
+    }
+
+    // --- Writing ---
+
+    /** Assigns the next order id, stamps the current time and queues the record for disk. */
+    public OrderRecord record(String tableId, String customerId, List<OrderRecord.Line> lines,
+                              long discountCentavos, long totalCentavos) {
+        OrderRecord order = new OrderRecord(nextOrderId.getAndIncrement(), System.currentTimeMillis(),
+                tableId, customerId, lines, discountCentavos, totalCentavos);
+        PersistenceService.getInstance().append(fileName, encode(order));
+        return order;
+    }
+
+    private static byte[] encode(OrderRecord order) {
+        ByteArrayOutputStream payloadBytes = new ByteArrayOutputStream(64 + order.getLines().size() * 24);
+        try (DataOutputStream out = new DataOutputStream(payloadBytes)) {
+            out.writeLong(order.getOrderId());
+            out.writeLong(order.getTimestamp());
+            out.writeUTF(order.getTableId());
+            out.writeUTF(order.getCustomerId());
+            out.writeLong(order.getDiscountCentavos());
+            out.writeLong(order.getTotalCentavos());
+            out.writeShort(order.getLines().size());
+            for (OrderRecord.Line line : order.getLines()) {
+                out.writeUTF(line.getItemName());
+                out.writeInt(line.getQuantity());
+                out.writeLong(line.getUnitPriceCentavos());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Cannot happen for an in-memory stream
+        }
+        byte[] payload = payloadBytes.toByteArray();
+
+        ByteBuffer frame = ByteBuffer.allocate(payload.length + FRAME_OVERHEAD);
+        frame.putInt(payload.length).put(payload).putInt(crc(payload, 0, payload.length)).putInt(payload.length);
+        return frame.array();
+    }
+
+    // --- Reading ---
+
+    /**
+     * Streams every intact order in the ledger, oldest first, to the consumer. Orders still
+     * queued on the writer thread are written out first. Only a window of the file is held
+     * in memory at a time.
+     *
+     * A damaged frame does not end the walk: the scan resyncs at the next intact frame, and
+     * once every intact order has been delivered an IOException reports the damage, so a
+     * reconciliation can never come up short without noticing. A frame cut off at the very
+     * end is an append still in progress and is left for the next call.
+     */
+    public void forEach(Consumer<OrderRecord> consumer) throws IOException {
+        PersistenceService.getInstance().flush();
+        Path path = Paths.get(fileName);
+        if (!Files.exists(path)) return;
+
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            FrameScanner frames = new FrameScanner(ch);
+            if (!frames.hasMagic()) throw new IOException(fileName + " is not a sales ledger");
+            OrderRecord order;
+            while ((order = frames.next()) != null) consumer.accept(order);
+            if (frames.damagedBytes > 0) {
+                throw new IOException(fileName + ": skipped " + frames.damagedBytes + " damaged bytes from offset "
+                        + frames.firstDamage + "; the orders stored there are missing from this walk");
+            }
+        }
+    }
+
+    private static OrderRecord decode(byte[] payload, int offset, int length) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload, offset, length));
+        long orderId = in.readLong();
+        long timestamp = in.readLong();
+        String tableId = in.readUTF();
+        String customerId = in.readUTF();
+        long discount = in.readLong();
+        long total = in.readLong();
+        int lineCount = in.readUnsignedShort();
+        List<OrderRecord.Line> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            lines.add(new OrderRecord.Line(in.readUTF(), in.readInt(), in.readLong()));
+        }
+        return new OrderRecord(orderId, timestamp, tableId, customerId, lines, discount, total);
+    }
+
+    /**
+     * Walks the frames of a ledger in file order through a sliding window. Bytes that do not
+     * start an intact frame are skipped one at a time until the next intact frame, so damage
+     * in the middle of the file costs only the orders stored in the damaged bytes.
+     */
+    private static final class FrameScanner {
+        private final FileChannel ch;
+        private final long limit; // File size when the scan started
+        private ByteBuffer window = ByteBuffer.allocate(1 << 16);
+        private long windowStart = 0;
+        private int windowFill = 0;
+
+        long offset = 4;        // Where the next frame should start
+        long damagedBytes = 0;  // Skipped between intact frames
+        long firstDamage = -1;  // Offset of the first skipped byte, or -1
+        long tailFrom = -1;     // Start of trailing bytes that hold no intact frame, or -1
+
+        FrameScanner(FileChannel ch) throws IOException {
+            this.ch = ch;
+            this.limit = ch.size();
+        }
+
+        boolean hasMagic() throws IOException {
+            return fill(0, 4) && window.getInt(0) == MAGIC;
+        }
+
+        /** @return the next intact order, or null at the end of the file. */
+        OrderRecord next() throws IOException {
+            long damageStart = -1;
+            while (offset + FRAME_OVERHEAD <= limit) {
+                int length = intactLengthAt(offset);
+                if (length >= 0) {
+                    if (damageStart >= 0) {
+                        damagedBytes += offset - damageStart;
+                        if (firstDamage < 0) firstDamage = damageStart;
+                    }
+                    OrderRecord order = decode(window.array(), (int) (offset - windowStart) + 4, length);
+                    offset += FRAME_OVERHEAD + length;
+                    return order;
+                }
+                if (damageStart < 0) damageStart = offset;
+                offset++;
+            }
+            if (damageStart >= 0) tailFrom = damageStart;
+            else if (offset < limit) tailFrom = offset;
+            return null;
+        }
+
+        /** @return the payload length if an intact frame starts at pos (now in the window), else -1. */
+        private int intactLengthAt(long pos) throws IOException {
+            if (!fill(pos, 4)) return -1;
+            int length = window.getInt((int) (pos - windowStart));
+            if (length < MIN_PAYLOAD || length > MAX_PAYLOAD || pos + FRAME_OVERHEAD + length > limit) return -1;
+            if (!fill(pos, FRAME_OVERHEAD + length)) return -1;
+            int base = (int) (pos - windowStart);
+            if (window.getInt(base + 8 + length) != length) return -1;
+            if (window.getInt(base + 4 + length) != crc(window.array(), base + 4, length)) return -1;
+            return length;
+        }
+
+        /** Makes the n bytes at pos available in the window. @return false if the file ends first. */
+        private boolean fill(long pos, int n) throws IOException {
+            if (pos >= windowStart && pos + n <= windowStart + windowFill) return true;
+            if (n > window.capacity()) window = ByteBuffer.allocate(Math.max(n, window.capacity() * 2));
+            window.clear();
+            window.limit((int) Math.min(window.capacity(), limit - pos));
+            windowStart = pos;
+            while (window.hasRemaining()) {
+                if (ch.read(window, pos + window.position()) < 0) break;
+            }
+            windowFill = window.position();
+            return windowFill >= n;
+        }
+    }
+
+    // --- Startup ---
+
+    /**
+     * Writes the magic to a new ledger, or picks up the order id sequence from the last
+     * frame of an existing one. If the last frame is damaged, the file is scanned: damage in
+     * the middle is reported and kept (later orders stay readable), and only trailing bytes
+     * holding no intact frame, i.e. an append cut short by a crash, are truncated.
+     */
+    private void openLedger() {
+        Path path = Paths.get(fileName);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (ch.size() < 4) {
+                ch.truncate(0);
+                ch.write(ByteBuffer.allocate(4).putInt(0, MAGIC));
+                ch.force(true);
+                return;
+            }
+            OrderRecord last = readLastFrame(ch);
+            if (last == null) last = repair(ch);
+            if (last != null) nextOrderId.set(last.getOrderId() + 1);
+        } catch (IOException e) {
+            System.err.println("Could not open " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    private OrderRecord readLastFrame(FileChannel ch) throws IOException {
+        long size = ch.size();
+        if (size < 4 + FRAME_OVERHEAD) return null;
+        ByteBuffer tail = ByteBuffer.allocate(4);
+        ch.read(tail, size - 4);
+        int length = tail.getInt(0);
+        if (length < MIN_PAYLOAD || length > MAX_PAYLOAD || size - FRAME_OVERHEAD - length < 4) return null;
+        return readFrameAt(ch, size - FRAME_OVERHEAD - length);
+    }
+
+    /** @return the order in the frame at the given offset, or null if the frame is not intact. */
+    private static OrderRecord readFrameAt(FileChannel ch, long offset) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(4);
+        if (ch.read(head, offset) < 4) return null;
+        int length = head.getInt(0);
+        if (length < MIN_PAYLOAD || length > MAX_PAYLOAD || offset + FRAME_OVERHEAD + length > ch.size()) return null;
+
+        ByteBuffer body = ByteBuffer.allocate(length + 8);
+        while (body.hasRemaining()) {
+            if (ch.read(body, offset + 4 + body.position()) < 0) return null;
+        }
+        byte[] payload = body.array();
+        if (body.getInt(length) != crc(payload, 0, length) || body.getInt(length + 4) != length) return null;
+        return decode(payload, 0, length);
+    }
+
+    /** Scans the whole ledger after a damaged last frame; @return the newest intact order. */
+    private OrderRecord repair(FileChannel ch) throws IOException {
+        FrameScanner frames = new FrameScanner(ch);
+        OrderRecord last = null;
+        OrderRecord order;
+        while ((order = frames.next()) != null) last = order;
+        if (frames.damagedBytes > 0) {
+            System.err.println(fileName + ": " + frames.damagedBytes + " damaged bytes from offset "
+                    + frames.firstDamage + " were skipped; the later orders are intact and kept");
+        }
+        if (frames.tailFrom >= 0) {
+            System.err.println("Dropping " + (ch.size() - frames.tailFrom) + " bytes of a torn append at the end of " + fileName);
+            ch.truncate(frames.tailFrom);
+            ch.force(true);
+        }
+        return last;
+    }
+
+    private static int crc(byte[] data, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+        return (int) crc.getValue();
+    }
+}
\ No newline at end of file
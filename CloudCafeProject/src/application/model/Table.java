@@ -6,54 +6,105 @@ public class Table {
     private final String id;
     private final int capacity;
     private final boolean isVip;
-    // Properties allow the GUI to update automatically when these change
-    private final ObjectProperty<TableStatus> status;
-    private final SimpleStringProperty currentCustomer;
+    private final String area; // Derived from the kind of table, see getArea
+    private TableStatus status = TableStatus.AVAILABLE;
+    private String currentCustomer = "None";
+    private long statusSince = 0; // When the status last changed (epoch ms), 0 if not known
+    private TableManager owner; // Notified after each change (null until added to a TableManager)
+
+    // Views for the GUI, created the first time a screen binds to them
+    private ReadOnlyObjectWrapper<TableStatus> statusView;
+    private ReadOnlyStringWrapper customerView;
 
     public Table(String id, int capacity, boolean isVip) {
         this.id = id;
         this.capacity = capacity;
         this.isVip = isVip;
-        this.status = new SimpleObjectProperty<>(TableStatus.AVAILABLE);
-        this.currentCustomer = new SimpleStringProperty("None");
+        this.area = isVip ? "VIP AREA" : capacity >= 4 ? "Customer Area (" + capacity + " Pax)" : "Side (" + capacity + " Pax)";
     }
 
     // --- Logic ---
     public void occupy(String customerName) {
-        this.status.set(TableStatus.OCCUPIED);
-        this.currentCustomer.set(customerName);
+        update(TableStatus.OCCUPIED, customerName);
     }
 
     public void reserve(String customerName) {
-        this.status.set(TableStatus.RESERVED);
-        this.currentCustomer.set(customerName);
+        update(TableStatus.RESERVED, customerName);
     }
 
     public void free() {
-        this.status.set(TableStatus.AVAILABLE);
-        this.currentCustomer.set("None");
+        update(TableStatus.AVAILABLE, "None");
+    }
+
+    private void update(TableStatus newStatus, String customer) {
+        if (newStatus == status && customer.equals(currentCustomer)) return;
+        if (newStatus != status) {
+            statusSince = owner != null ? owner.statusChanging(status, statusSince, newStatus) : 0;
+        }
+        this.status = newStatus;
+        this.currentCustomer = customer;
+        if (statusView != null) statusView.set(newStatus);
+        if (customerView != null) customerView.set(customer);
+        if (owner != null) owner.tableChanged(this);
     }
 
+    void setOwner(TableManager owner) { this.owner = owner; }
+
+    /** Sets the saved transition time of a table just loaded (see TurnoverStats.load). */
+    void restoreStatusSince(long since) { this.statusSince = since; }
+
     // --- Persistence Helpers ---
     public String toCSV() {
-        return id + "," + capacity + "," + isVip + "," + status.get() + "," + currentCustomer.get();
+        return CsvReader.quote(id) + "," + capacity + "," + isVip + "," + status + "," + CsvReader.quote(currentCustomer);
     }
 
     public static Table fromCSV(String line) {
-        String[] p = line.split(",");
-        if (p.length < 5) return null;
-        Table t = new Table(p[0], Integer.parseInt(p[1]), Boolean.parseBoolean(p[2]));
-        t.status.set(TableStatus.valueOf(p[3]));
-        t.currentCustomer.set(p[4]);
+        CsvReader r = new CsvReader(line);
+        return r.nextRecord() ? read(r) : null;
+    }
+
+    /** Appends this table as one row of a binary image (schema "SIBSS"). */
+    void writeTo(BinarySnapshot.Writer image) {
+        image.putString(id).putInt(capacity).putBoolean(isVip).putString(status.name()).putString(currentCustomer);
+    }
+
+    static Table read(BinarySnapshot.Reader image, int row) {
+        Table t = new Table(image.getString(row, 0), image.getInt(row, 1), image.getBoolean(row, 2));
+        t.status = TableStatus.valueOf(image.getString(row, 3));
+        t.currentCustomer = image.getString(row, 4);
         return t;
     }
 
+    /** Reads one ID,Capacity,IsVIP,Status,Customer record; null if it is malformed. */
+    static Table read(CsvReader r) {
+        try {
+            Table t = new Table(r.nextString(), r.nextInt(), r.nextBoolean());
+            t.status = r.nextEnum(TableStatus.class);
+            t.currentCustomer = r.nextString();
+            return t;
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return null; // Also covers NumberFormatException
+        }
+    }
+
     // --- Getters ---
     public String getId() { return id; }
     public int getCapacity() { return capacity; }
     public boolean isVip() { return isVip; }
-    public TableStatus getStatus() { return status.get(); }
-    public String getCurrentCustomer() { return currentCustomer.get(); }
+    /** Area of the floor the table stands in; tables of one area have the same size and kind. */
+    public String getArea() { return area; }
+    public TableStatus getStatus() { return status; }
+    public String getCurrentCustomer() { return currentCustomer; }
+    /** When the table entered its current status (epoch ms), or 0 if that is not known. */
+    public long getStatusSince() { return statusSince; }
     
-    public ObjectProperty<TableStatus> statusProperty() { return status; }
+    public ReadOnlyObjectProperty<TableStatus> statusProperty() {
+        if (statusView == null) statusView = new ReadOnlyObjectWrapper<>(this, "status", status);
+        return statusView.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty currentCustomerProperty() {
+        if (customerView == null) customerView = new ReadOnlyStringWrapper(this, "currentCustomer", currentCustomer);
+        return customerView.getReadOnlyProperty();
+    }
 }
\ No newline at end of file
@@ -1,66 +1,248 @@
 package application.model;
 
 import java.io.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 
+/**
+ * The café's tables. Every status or customer change is published on the Cafe's
+ * ChangeBus, so screens showing the floor follow it live (see addStatusListener).
+ *
+ * Tables of one area that are next to each other in floor order count as adjacent and
+ * can be pushed together for a large party (see assignSeats).
+ *
+ * Status changes are also timed into the TurnoverStats (see getTurnover), which are saved
+ * together with the tables.
+ */
 public class TableManager {
     private Map<String, Table> tables;
     private static final String TABLE_FILE = "tables.csv";
+    private static final String HEADER = "ID,Capacity,IsVIP,Status,Customer";
+    private static final String IMAGE_SCHEMA = "SIBSS"; // Same columns, see BinarySnapshot
 
-    public TableManager() {
+    // VIP tables first, then larger before smaller, then by ID with "T2" before "T10"
+    private static final Comparator<Table> FLOOR_ORDER = Comparator.comparing(Table::isVip).reversed()
+            .thenComparing(Comparator.comparingInt(Table::getCapacity).reversed())
+            .thenComparingInt(t -> t.getId().length())
+            .thenComparing(Table::getId);
+
+    // IDs of tables changed since the last save (see tableChanged)
+    private final Set<String> dirtyTables = new HashSet<>();
+    private boolean dirty = false;
+    private final ChangeBus events;
+    private List<Table> floorOrder; // Sorted by FLOOR_ORDER, rebuilt after a table is added
+    private final TurnoverStats turnover = new TurnoverStats();
+    private volatile boolean timing = true; // Off while the journal is replayed
+
+    public TableManager(ChangeBus events) {
         tables = new HashMap<>();
+        this.events = events;
         loadTables();
+        turnover.load(tables);
     }
 
     public Map<String, Table> getTables() { return tables; }
     public Table getTable(String id) { return tables.get(id); }
+    public TurnoverStats getTurnover() { return turnover; }
+
+    /** All tables in the order a floor map lists them (read-only). */
+    public List<Table> getFloorOrder() {
+        if (floorOrder == null) {
+            List<Table> sorted = new ArrayList<>(tables.values());
+            sorted.sort(FLOOR_ORDER);
+            floorOrder = Collections.unmodifiableList(sorted);
+        }
+        return floorOrder;
+    }
+
+    // --- Seat Assignment ---
+
+    /**
+     * Picks where to seat a party: the usable table that leaves the fewest seats empty or,
+     * if no single table is big enough, the run of adjacent usable tables that does (then
+     * the shortest such run). VIP tables only go to VIP members, who are offered them
+     * before the regular floor.
+     * @param usable which tables may be given out (status now, upcoming reservations)
+     * @return the tables in floor order, or an empty list if the party cannot be seated.
+     */
+    public List<Table> assignSeats(int partySize, boolean vip, Predicate<Table> usable) {
+        List<Table> floor = getFloorOrder();
+        List<Table> seats = Collections.emptyList();
+        if (vip) seats = assignSeats(floor, partySize, t -> t.isVip() && usable.test(t));
+        if (seats.isEmpty()) seats = assignSeats(floor, partySize, t -> !t.isVip() && usable.test(t));
+        return seats;
+    }
+
+    private static List<Table> assignSeats(List<Table> floor, int partySize, Predicate<Table> usable) {
+        if (partySize <= 0) return Collections.emptyList();
+
+        // Best single table; the test is run once per table and remembered for the runs below
+        boolean[] ok = new boolean[floor.size()];
+        Table best = null;
+        for (int i = 0; i < ok.length; i++) {
+            Table t = floor.get(i);
+            ok[i] = usable.test(t);
+            if (!ok[i] || t.getCapacity() < partySize) continue;
+            if (best == null || t.getCapacity() < best.getCapacity()) {
+                best = t;
+                if (t.getCapacity() == partySize) return Collections.singletonList(best); // Nothing wasted
+            }
+        }
+        if (best != null) return Collections.singletonList(best);
+
+        // Best run of adjacent tables: a sliding window over each stretch of usable
+        // tables within one area, kept as short as the party allows
+        int bestFrom = -1, bestTo = -1, bestWaste = Integer.MAX_VALUE;
+        int from = 0, seats = 0;
+        for (int i = 0; i < floor.size(); i++) {
+            Table t = floor.get(i);
+            if (!ok[i]) {
+                from = i + 1;
+                seats = 0;
+                continue;
+            }
+            if (i > from && !t.getArea().equals(floor.get(i - 1).getArea())) {
+                from = i;
+                seats = 0;
+            }
+            seats += t.getCapacity();
+            while (seats - floor.get(from).getCapacity() >= partySize) {
+                seats -= floor.get(from++).getCapacity();
+            }
+            if (seats < partySize) continue;
+            int waste = seats - partySize;
+            if (waste < bestWaste || (waste == bestWaste && i - from < bestTo - bestFrom)) {
+                bestFrom = from;
+                bestTo = i;
+                bestWaste = waste;
+            }
+        }
+        return bestFrom < 0 ? Collections.emptyList() : new ArrayList<>(floor.subList(bestFrom, bestTo + 1));
+    }
+
+    // --- Change Notification ---
+
+    /**
+     * Registers a callback run on the FX thread with each batch of tables whose status or
+     * customer changed, from any screen. A table changed several times between batches is
+     * reported once; read its current state from the Table.
+     * @return a handle that removes the callback again.
+     */
+    public Runnable addStatusListener(Consumer<List<Table>> listener) {
+        return events.subscribe(ChangeBus.TABLES, listener);
+    }
 
     public void loadTables() {
-        File file = new File(TABLE_FILE);
-        if (!file.exists()) {
-            initializeDefaultTables();
+        // A current binary image skips CSV parsing altogether
+        BinarySnapshot.Reader image = BinarySnapshot.open(TABLE_FILE, IMAGE_SCHEMA);
+        if (image != null && image.rowCount() > 0) {
+            for (int row = 0; row < image.rowCount(); row++) {
+                register(Table.read(image, row));
+            }
             return;
         }
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            br.readLine(); // Skip header
-            String line;
-            while ((line = br.readLine()) != null) {
-                Table t = Table.fromCSV(line);
-                if (t != null) tables.put(t.getId(), t);
+
+        // Verifies the checksum trailer and falls back to the .bak generation if needed
+        try {
+            CsvReader records = CsvFiles.openRecords(TABLE_FILE);
+            if (records == null) {
+                initializeDefaultTables();
+                return;
+            }
+            records.nextRecord(); // Skip header
+            while (records.nextRecord()) {
+                Table t = Table.read(records);
+                if (t != null) register(t);
             }
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    /** Queues a background write of the table file (never blocks on disk I/O). */
     public void saveTables() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(TABLE_FILE))) {
-            pw.println("ID,Capacity,IsVIP,Status,Customer");
-            for (Table t : tables.values()) {
-                pw.println(t.toCSV());
-            }
-        } catch (IOException e) {
-            e.printStackTrace();
+        PersistenceService.getInstance().write(snapshot());
+        PersistenceService.getInstance().write(turnoverSnapshot());
+    }
+
+    /** Copies the current rows for the persistence thread; the store counts as clean afterwards. */
+    PersistenceService.Snapshot snapshot() {
+        List<String> rows = new ArrayList<>(tables.size());
+        BinarySnapshot.Writer image = BinarySnapshot.ENABLED ? new BinarySnapshot.Writer(IMAGE_SCHEMA) : null;
+        for (Table t : tables.values()) {
+            rows.add(t.toCSV());
+            if (image != null) t.writeTo(image);
         }
+        dirtyTables.clear();
+        dirty = false;
+        return new PersistenceService.Snapshot(TABLE_FILE, HEADER, rows)
+                .withImage(image != null ? image.toByteArray() : null);
+    }
+
+    /** Copies the turnover stats and transition times; save it whenever snapshot() is saved. */
+    PersistenceService.Snapshot turnoverSnapshot() {
+        return turnover.snapshot(tables.values());
+    }
+
+    // --- Dirty Tracking ---
+
+    /** True if anything changed since the last successful save. */
+    public boolean isDirty() { return dirty; }
+
+    /** Number of tables modified since the last save. */
+    public int getDirtyCount() { return dirtyTables.size(); }
+
+    private void register(Table t) {
+        tables.put(t.getId(), t);
+        t.setOwner(this);
+        floorOrder = null;
+    }
+
+    /**
+     * Called by a Table about to change status; records the change in the turnover stats.
+     * @return the time of the change (epoch ms), or 0 while transitions are not timed.
+     */
+    long statusChanging(TableStatus from, long since, TableStatus to) {
+        if (!timing) return 0;
+        long now = System.currentTimeMillis();
+        turnover.record(from, since, to, now);
+        return now;
+    }
+
+    /** Turns timing off while replayed changes are applied, as their real times are unknown. */
+    void setTiming(boolean timing) { this.timing = timing; }
+
+    /** Called by a Table after its status or customer changed. */
+    void tableChanged(Table t) {
+        dirtyTables.add(t.getId());
+        dirty = true;
+        events.publish(ChangeBus.TABLES, t);
     }
 
     private void initializeDefaultTables() {
         // 2 VIP Tables (4 Seater)
-        tables.put("VIP 1", new Table("VIP 1", 4, true));
-        tables.put("VIP 2", new Table("VIP 2", 4, true));
+        register(new Table("VIP 1", 4, true));
+        register(new Table("VIP 2", 4, true));
 
         // 3 Regular Tables (4 Seater) - Center Area
-        tables.put("Table 1", new Table("Table 1", 4, false));
-        tables.put("Table 2", new Table("Table 2", 4, false));
-        tables.put("Table 3", new Table("Table 3", 4, false));
+        register(new Table("Table 1", 4, false));
+        register(new Table("Table 2", 4, false));
+        register(new Table("Table 3", 4, false));
 
         // 5 Regular Tables (2 Seater) - Side Area
-        tables.put("T4", new Table("T4", 2, false));
-        tables.put("T5", new Table("T5", 2, false));
-        tables.put("T6", new Table("T6", 2, false));
-        tables.put("T7", new Table("T7", 2, false));
-        tables.put("T8", new Table("T8", 2, false));
+        register(new Table("T4", 2, false));
+        register(new Table("T5", 2, false));
+        register(new Table("T6", 2, false));
+        register(new Table("T7", 2, false));
+        register(new Table("T8", 2, false));
         
         saveTables();
     }
@@ -0,0 +1,192 @@
+package application.model;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only write-ahead log of the changes made since the last CSV snapshot.
+ * A sale appends a handful of short lines here instead of rewriting every data file;
+ * the Cafe replays the log on startup and compacts it back into the snapshots.
+ * The actual file writes happen on the PersistenceService writer thread.
+ * Replay is split per store so each one can be recovered as soon as it has loaded.
+ *
+ * Line format (each entry carries the resulting value, so replaying twice is harmless):
+ *   STOCK,ingredientName,delta,newStockLevel
+ *   POINTS,userId,delta,newPoints
+ *   TABLE,tableId,status,customer
+ * Names and ids are quoted like in the data files (see CsvReader.quote), so they may
+ * contain commas.
+ */
+public class TransactionJournal {
+    static final String JOURNAL_FILE = "transactions.log";
+
+    private final StringBuilder pending = new StringBuilder();
+    private int pendingCount = 0;
+    private int entryCount = 0; // Entries committed since the last compaction
+    private long lastSeq = SEQUENCE.get(); // Sequence number of the most recent commit
+    private final List<String[]> recovered; // Fields of the entries found on disk at startup
+
+    // Shared by all journals so the writer thread can order appends against checkpoints
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    public TransactionJournal() {
+        this.recovered = readEntries();
+        this.entryCount = recovered.size();
+    }
+
+    // --- Recording (buffered until commit) ---
+
+    public synchronized void logStock(Ingredient ingredient, int delta) {
+        pending.append("STOCK,").append(CsvReader.quote(ingredient.getName())).append(',')
+               .append(delta).append(',').append(ingredient.getStockLevel()).append('\n');
+        pendingCount++;
+    }
+
+    public synchronized void logPoints(User user, int delta) {
+        pending.append("POINTS,").append(CsvReader.quote(user.getId())).append(',')
+               .append(delta).append(',').append(user.getPoints()).append('\n');
+        pendingCount++;
+    }
+
+    public synchronized void logTable(Table table) {
+        pending.append("TABLE,").append(CsvReader.quote(table.getId())).append(',')
+               .append(table.getStatus()).append(',').append(CsvReader.quote(table.getCurrentCustomer())).append('\n');
+        pendingCount++;
+    }
+
+    /** Queues everything logged since the last commit as a single sequential append. */
+    public synchronized void commit() {
+        if (pendingCount == 0) return;
+        lastSeq = SEQUENCE.incrementAndGet();
+        PersistenceService.getInstance().append(JOURNAL_FILE, pending.toString(), lastSeq);
+        entryCount += pendingCount;
+        pending.setLength(0);
+        pendingCount = 0;
+    }
+
+    /** Called once a checkpoint covering every committed entry has been queued. */
+    synchronized void markCompacted() {
+        entryCount = 0;
+    }
+
+    public synchronized int getEntryCount() { return entryCount; }
+    synchronized long getLastSeq() { return lastSeq; }
+
+    // --- Recovery ---
+
+    /** Re-applies logged changes on top of the freshly loaded CSV snapshots. */
+    public void replay(Inventory inventory, UserManager userManager, TableManager tableManager) {
+        replayStock(inventory);
+        replayPoints(userManager);
+        replayTables(tableManager);
+    }
+
+    /** Re-applies the STOCK entries found at startup. */
+    public void replayStock(Inventory inventory) {
+        for (String[] entry : recovered) {
+            String[] p = parse(entry, "STOCK");
+            if (p == null) continue;
+            try {
+                Ingredient ingredient = inventory.getStock().get(p[1]);
+                if (ingredient == null) continue;
+                int diff = Integer.parseInt(p[3]) - ingredient.getStockLevel();
+                if (diff > 0) ingredient.addStock(diff);
+                else if (diff < 0) ingredient.deductStock(-diff);
+            } catch (NumberFormatException e) {
+                System.err.println("Skipping malformed journal entry: " + String.join(",", entry));
+            }
+        }
+    }
+
+    /** Re-applies the POINTS entries found at startup. */
+    public void replayPoints(UserManager userManager) {
+        for (String[] entry : recovered) {
+            String[] p = parse(entry, "POINTS");
+            if (p == null) continue;
+            try {
+                User user = userManager.getUser(p[1]);
+                if (user != null) user.addPoints(Integer.parseInt(p[3]) - user.getPoints());
+            } catch (NumberFormatException e) {
+                System.err.println("Skipping malformed journal entry: " + String.join(",", entry));
+            }
+        }
+    }
+
+    /** Re-applies the TABLE entries found at startup. */
+    public void replayTables(TableManager tableManager) {
+        tableManager.setTiming(false);
+        try {
+            replayTableEntries(tableManager);
+        } finally {
+            tableManager.setTiming(true);
+        }
+    }
+
+    private void replayTableEntries(TableManager tableManager) {
+        for (String[] entry : recovered) {
+            String[] p = parse(entry, "TABLE");
+            if (p == null) continue;
+            try {
+                Table table = tableManager.getTable(p[1]);
+                if (table == null) continue;
+                switch (TableStatus.valueOf(p[2])) {
+                    case AVAILABLE: table.free(); break;
+                    case OCCUPIED:  table.occupy(p[3]); break;
+                    case RESERVED:  table.reserve(p[3]); break;
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Skipping malformed journal entry: " + String.join(",", entry));
+            }
+        }
+    }
+
+    /** @return the entry's fields if it is an intact entry of the given type, else null. */
+    private static String[] parse(String[] entry, String type) {
+        if (!entry[0].equals(type)) return null;
+        if (entry.length > 4 && type.equals("TABLE")) {
+            // Written before fields were quoted: the customer name ran to the end of the line
+            String[] p = Arrays.copyOf(entry, 4);
+            p[3] = String.join(",", Arrays.asList(entry).subList(3, entry.length));
+            return p;
+        }
+        return entry.length == 4 ? entry : null;
+    }
+
+    private static List<String[]> readEntries() {
+        File file = new File(JOURNAL_FILE);
+        if (!file.exists()) return Collections.emptyList();
+        String content;
+        try {
+            content = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return Collections.emptyList();
+        }
+        // A crash mid-append leaves the last entry without its line break
+        int complete = content.lastIndexOf('\n') + 1;
+        if (complete < content.length()) {
+            System.err.println("Skipping torn journal entry: " + content.substring(complete));
+            content = content.substring(0, complete);
+        }
+
+        List<String[]> entries = new ArrayList<>();
+        CsvReader r = new CsvReader(content);
+        while (r.nextRecord()) {
+            List<String> fields = new ArrayList<>(4);
+            while (r.hasMoreFields()) fields.add(r.nextString());
+            String[] entry = fields.toArray(new String[0]);
+            if (parse(entry, "STOCK") == null && parse(entry, "POINTS") == null && parse(entry, "TABLE") == null) {
+                System.err.println("Unknown journal entry: " + String.join(",", entry));
+                continue;
+            }
+            entries.add(entry);
+        }
+        return entries;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,138 @@
+package application.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * How long parties stay at their tables and how many are seated per hour, kept for the
+ * last HOURS hours in a ring of hourly slots. A seating is counted in the hour it starts
+ * and its dwell time (OCCUPIED until the next status change) in the hour it ends; a
+ * seating whose start is unknown, e.g. one recovered from the journal, is not timed.
+ *
+ * Recording allocates nothing, so it can run on every table change. The stats and each
+ * table's last transition time are saved to table_turnover.csv next to tables.csv.
+ */
+public final class TurnoverStats {
+    public static final int HOURS = 24;
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final String TURNOVER_FILE = "table_turnover.csv";
+    // HOUR rows; SINCE rows reuse the columns as SINCE,TableId,Status,Millis
+    private static final String HEADER = "Kind,Key,Seated,DwellTotal,DwellMax,DwellBuckets";
+
+    private final long[] slotHour = new long[HOURS]; // Epoch hour each slot holds
+    private final int[] seated = new int[HOURS];
+    private final DwellHistogram[] dwell = new DwellHistogram[HOURS];
+
+    TurnoverStats() {
+        for (int i = 0; i < HOURS; i++) {
+            slotHour[i] = Long.MIN_VALUE;
+            dwell[i] = new DwellHistogram();
+        }
+    }
+
+    /**
+     * Records a status change made at now (epoch ms) from a status held since since
+     * (0 if unknown). Changes with an unknown time are ignored.
+     */
+    synchronized void record(TableStatus from, long since, TableStatus to, long now) {
+        if (now == 0) return;
+        if (to == TableStatus.OCCUPIED && from != TableStatus.OCCUPIED) seated[slot(now)]++;
+        if (from == TableStatus.OCCUPIED && to != TableStatus.OCCUPIED && since != 0) {
+            dwell[slot(now)].record((now - since) / 1000);
+        }
+    }
+
+    /** The ring slot for the hour of the given time, cleared first if it held an older hour. */
+    private int slot(long millis) {
+        long hour = Math.floorDiv(millis, HOUR_MILLIS);
+        int i = (int) Math.floorMod(hour, (long) HOURS);
+        if (slotHour[i] != hour) {
+            slotHour[i] = hour;
+            seated[i] = 0;
+            dwell[i].clear();
+        }
+        return i;
+    }
+
+    // --- Queries ---
+
+    /** Dwell times of the seatings that ended in the last hours hours (1 = the current hour). */
+    public synchronized DwellHistogram getDwell(int hours, long now) {
+        DwellHistogram merged = new DwellHistogram();
+        long current = Math.floorDiv(now, HOUR_MILLIS);
+        for (int i = 0; i < HOURS; i++) {
+            if (slotHour[i] <= current && slotHour[i] > current - hours) merged.add(dwell[i]);
+        }
+        return merged;
+    }
+
+    /** Parties seated in each of the last HOURS hours, oldest first; the last is the current hour. */
+    public synchronized int[] getSeatedPerHour(long now) {
+        int[] perHour = new int[HOURS];
+        long current = Math.floorDiv(now, HOUR_MILLIS);
+        for (int i = 0; i < HOURS; i++) {
+            long age = current - slotHour[i];
+            if (age >= 0 && age < HOURS) perHour[HOURS - 1 - (int) age] = seated[i];
+        }
+        return perHour;
+    }
+
+    // --- Persistence ---
+
+    synchronized PersistenceService.Snapshot snapshot(Collection<Table> tables) {
+        List<String> rows = new ArrayList<>(HOURS + tables.size());
+        for (int i = 0; i < HOURS; i++) {
+            if (slotHour[i] == Long.MIN_VALUE) continue;
+            DwellHistogram h = dwell[i];
+            rows.add("HOUR," + slotHour[i] + "," + seated[i] + "," + h.getTotalSeconds() + ","
+                    + h.getMaxSeconds() + "," + CsvReader.quote(h.toCSV()));
+        }
+        for (Table t : tables) {
+            if (t.getStatusSince() == 0) continue;
+            rows.add("SINCE," + CsvReader.quote(t.getId()) + "," + t.getStatus() + "," + t.getStatusSince());
+        }
+        return new PersistenceService.Snapshot(TURNOVER_FILE, HEADER, rows);
+    }
+
+    /**
+     * Restores the saved hours, and the transition times of tables still in the status
+     * they were saved with. A missing file simply starts the stats empty.
+     */
+    synchronized void load(Map<String, Table> tables) {
+        try {
+            CsvReader records = CsvFiles.openRecords(TURNOVER_FILE);
+            if (records == null) return;
+            records.nextRecord(); // Skip header
+            while (records.nextRecord()) {
+                try {
+                    String kind = records.nextString();
+                    if (kind.equals("HOUR")) {
+                        long hour = Long.parseLong(records.nextString());
+                        int count = records.nextInt();
+                        long total = Long.parseLong(records.nextString());
+                        long max = Long.parseLong(records.nextString());
+                        DwellHistogram h = new DwellHistogram();
+                        h.readCSV(records.nextString(), total, max);
+                        int i = (int) Math.floorMod(hour, (long) HOURS);
+                        if (hour < slotHour[i]) continue;
+                        slotHour[i] = hour;
+                        seated[i] = count;
+                        dwell[i] = h;
+                    } else if (kind.equals("SINCE")) {
+                        Table t = tables.get(records.nextString());
+                        TableStatus status = records.nextEnum(TableStatus.class);
+                        long since = Long.parseLong(records.nextString());
+                        if (t != null && t.getStatus() == status) t.restoreStatusSince(since);
+                    }
+                } catch (IllegalArgumentException | IllegalStateException e) {
+                    System.err.println("Skipping malformed turnover record: " + records.currentRecord());
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
\ No newline at end of file
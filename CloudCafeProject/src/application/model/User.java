@@ -1,63 +1,118 @@
 package application.model;
 
-import javafx.beans.property.SimpleIntegerProperty;
-import javafx.beans.property.SimpleStringProperty;
+import javafx.beans.property.ReadOnlyIntegerProperty;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.property.ReadOnlyStringProperty;
+import javafx.beans.property.ReadOnlyStringWrapper;
 
+/**
+ * A loyalty member or staff account. Fields are plain values; the JavaFX properties a
+ * TableView binds to are created on first use, so users that are never shown cost no
+ * property objects. Changes go through the methods below, which notify the owning
+ * UserManager directly.
+ */
 public class User {
-    private final SimpleStringProperty id;
-    private final SimpleStringProperty name;
-    private final SimpleStringProperty role; // "Manager", "Cashier", "Common", "VIP"
-    private final SimpleIntegerProperty points;
-    private final SimpleStringProperty password; // NEW FIELD
+    private final String id;
+    private final String name;
+    private final String role; // "Manager", "Cashier", "Common", "VIP"
+    private int points;
+    private String password; // PBKDF2 hash (see PasswordHasher); plain text in older files
+    private UserManager owner; // Notified after each change (null for detached copies)
+
+    // Views for TableView, created lazily
+    private ReadOnlyStringWrapper idView;
+    private ReadOnlyStringWrapper nameView;
+    private ReadOnlyStringWrapper roleView;
+    private ReadOnlyIntegerWrapper pointsView;
 
     public User(String id, String name, String role, int points, String password) {
-        this.id = new SimpleStringProperty(id);
-        this.name = new SimpleStringProperty(name);
-        this.role = new SimpleStringProperty(role);
-        this.points = new SimpleIntegerProperty(points);
-        this.password = new SimpleStringProperty(password);
+        this.id = id;
+        this.name = name;
+        this.role = role;
+        this.points = points;
+        this.password = password;
     }
 
     // --- Logic ---
     public void addPoints(int amount) {
-        this.points.set(this.points.get() + amount);
+        this.points += amount;
+        if (pointsView != null) pointsView.set(points);
+        if (owner != null) owner.pointsChanged(this);
     }
 
     public boolean isVIP() {
-        return "VIP".equalsIgnoreCase(role.get());
+        return "VIP".equalsIgnoreCase(role);
+    }
+
+    void setOwner(UserManager owner) { this.owner = owner; }
+
+    /** Replaces the stored password hash (never a plain-text password). */
+    void setPassword(String hash) {
+        this.password = hash;
+        if (owner != null) owner.userChanged(this);
     }
     
     // --- Persistence ---
     public String toCSV() {
-        return id.get() + "," + name.get() + "," + role.get() + "," + points.get() + "," + password.get();
+        return CsvReader.quote(id) + "," + CsvReader.quote(name) + "," + CsvReader.quote(role)
+                + "," + points + "," + CsvReader.quote(password);
     }
 
     public static User fromCSV(String line) {
-        String[] parts = line.split(",");
-        if (parts.length < 5) return null; // Updated to expect 5 parts
+        CsvReader r = new CsvReader(line);
+        return r.nextRecord() ? read(r) : null;
+    }
+
+    /** Appends this user as one row of a binary image (schema "SSSIS"). */
+    void writeTo(BinarySnapshot.Writer image) {
+        image.putString(id).putString(name).putString(role).putInt(points).putString(password);
+    }
+
+    static User read(BinarySnapshot.Reader image, int row) {
+        return new User(image.getString(row, 0), image.getString(row, 1), image.getString(row, 2),
+                image.getInt(row, 3), image.getString(row, 4));
+    }
+
+    /** Reads one ID,Name,Role,Points,Password record; null if it is malformed. */
+    static User read(CsvReader r) {
         try {
             return new User(
-                parts[0].trim(), 
-                parts[1].trim(), 
-                parts[2].trim(), 
-                Integer.parseInt(parts[3].trim()), 
-                parts[4].trim()
+                r.nextString(), 
+                r.nextString(), 
+                r.nextString(), 
+                r.nextInt(), 
+                r.nextString()
             );
-        } catch (NumberFormatException e) {
+        } catch (NumberFormatException | IllegalStateException e) {
             return null;
         }
     }
 
     // --- Getters ---
-    public String getId() { return id.get(); }
-    public String getName() { return name.get(); }
-    public String getRole() { return role.get(); }
-    public int getPoints() { return points.get(); }
-    public String getPassword() { return password.get(); }
+    public String getId() { return id; }
+    public String getName() { return name; }
+    public String getRole() { return role; }
+    public int getPoints() { return points; }
+    public String getPassword() { return password; }
     
     // Properties for TableView
-    public SimpleStringProperty idProperty() { return id; }
-    public SimpleStringProperty nameProperty() { return name; }
-    public SimpleStringProperty roleProperty() { return role; }
-    public SimpleIntegerProperty pointsProperty() { return points; }
+    public ReadOnlyStringProperty idProperty() {
+        if (idView == null) idView = new ReadOnlyStringWrapper(this, "id", id);
+        return idView.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty nameProperty() {
+        if (nameView == null) nameView = new ReadOnlyStringWrapper(this, "name", name);
+        return nameView.getReadOnlyProperty();
+    }
+
+    public ReadOnlyStringProperty roleProperty() {
+        if (roleView == null) roleView = new ReadOnlyStringWrapper(this, "role", role);
+        return roleView.getReadOnlyProperty();
+    }
+
+    public ReadOnlyIntegerProperty pointsProperty() {
+        if (pointsView == null) pointsView = new ReadOnlyIntegerWrapper(this, "points", points);
+        return pointsView.getReadOnlyProperty();
+    }
 }
\ No newline at end of file
@@ -1,72 +1,422 @@
 package application.model;
 
 import java.io.*;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 
+/**
+ * Loyalty members and staff accounts.
+ *
+ * Users are not all kept in memory. Every save also writes "users.csv.bin", a binary
+ * image sorted by ID (see BinarySnapshot). On startup that image is copied to
+ * "users.idx" and mapped, and serves as the index for the whole session: users are read
+ * from it on demand, by binary search or by position for paging. Recently used users stay in
+ * an LRU cache, and users changed or added since startup are pinned in memory, so the
+ * index plus the pinned users always make up the current state. Without a current image
+ * (first run, or users.csv edited by hand) the CSV is loaded whole, as before.
+ *
+ * Thread-safe, so logins can be checked on a background thread: every method that reads
+ * or changes the store is synchronized, while password hashing runs outside the lock.
+ * Hashing is slow by design, so authenticate, addUser and hashPlainPasswords belong off
+ * the FX thread.
+ */
 public class UserManager {
-    private Map<String, User> users;
     private static final String USER_FILE = "users.csv";
+    private static final String HEADER = "ID,Name,Role,Points,Password";
+    private static final String IMAGE_SCHEMA = "SSSIS"; // Same columns, see BinarySnapshot
+    private static final String INDEX_FILE = "users.idx";
+    private static final int HOT_CAPACITY = 2048;
 
-    public UserManager() {
-        users = new HashMap<>();
+    // The session's index (null if the CSV was loaded instead)
+    private BinarySnapshot.Reader index;
+    private int imageRows = 0;
+
+    // Users changed or added since startup; these are never evicted
+    private final Map<String, User> pinned = new HashMap<>();
+    // Sorted IDs of pinned users that are not in the image (all users in CSV mode)
+    private String[] extraIds = new String[16];
+    private int extraCount = 0;
+    private int[] extraPositions; // Position of each extra in the merged ID order, built lazily
+
+    // Recently used users read from the image
+    private final Map<String, User> hot = new LinkedHashMap<String, User>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, User> eldest) {
+            return size() > HOT_CAPACITY;
+        }
+    };
+    // Every user handed out and still referenced somewhere (a screen, the cart), so that
+    // one ID never maps to two User objects after it drops out of the LRU cache
+    private final Map<String, UserRef> live = new HashMap<>();
+    private final ReferenceQueue<User> released = new ReferenceQueue<>();
+
+    // IDs of users changed since the last save (see userChanged)
+    private final Set<String> dirtyUsers = new HashSet<>();
+    private boolean dirty = false;
+
+    private final LoginGuard loginGuard = new LoginGuard();
+    private final ChangeBus events;
+
+    private static final class UserRef extends WeakReference<User> {
+        final String id;
+
+        UserRef(User user, ReferenceQueue<User> queue) {
+            super(user, queue);
+            this.id = user.getId();
+        }
+    }
+
+    public UserManager(ChangeBus events) {
+        this.events = events;
         loadUsers();
     }
 
+    /**
+     * Checks a login (see LoginGuard for caching and throttling). A password still stored
+     * as plain text, or hashed at a lower cost than today's, is re-hashed on success.
+     * @return the user, or null for a wrong password, unknown ID or locked-out ID.
+     */
     public User authenticate(String id, String password) {
-        User u = users.get(id);
-        if (u != null && u.getPassword().equals(password)) {
-            return u;
+        if (id == null || password == null) return null;
+        User u = getUser(id);
+        if (!loginGuard.verify(id, password, u != null ? u.getPassword() : null)) {
+            return null;
+        }
+        if (PasswordHasher.needsRehash(u.getPassword())) {
+            u.setPassword(PasswordHasher.hash(password));
+            saveUsers();
         }
-        return null;
+        return u;
     }
-    
+
+    /** Seconds until a locked-out ID may try to log in again, or 0. */
+    public long getLockoutSeconds(String id) {
+        long ms = loginGuard.lockoutRemaining(id);
+        return (ms + 999) / 1000;
+    }
+
     // --- NEW METHOD ---
+    /** Adds and saves a user, hashing a password given as typed (slow; call off the FX thread). */
     public void addUser(User newUser) {
-        users.put(newUser.getId(), newUser);
+        // Registration passes the password as typed; only its hash is ever stored
+        if (!PasswordHasher.isHashed(newUser.getPassword())) {
+            newUser.setPassword(PasswordHasher.hash(newUser.getPassword()));
+        }
+        synchronized (this) {
+            register(newUser);
+            pin(newUser);
+            if (findRow(newUser.getId()) < 0) addExtra(newUser.getId());
+            markDirty(newUser);
+        }
         saveUsers(); // Auto-save when adding
     }
-    
-    public Map<String, User> getUsers() { return users; }
-    
-    public User getUser(String id) {
-        return users.get(id);
-    }
-
-    public void loadUsers() {
-        File file = new File(USER_FILE);
-        if (!file.exists()) {
-            initializeDefaults();
-            return;
-        }
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            br.readLine(); // Skip header
-            String line;
-            while ((line = br.readLine()) != null) {
-                User u = User.fromCSV(line);
-                if (u != null) users.put(u.getId(), u);
+
+    /**
+     * Hashes every password still stored as plain text (users.csv from before hashing, or
+     * edited by hand), so accounts that never log in do not keep theirs in the clear.
+     * One PBKDF2 run per account, each outside the lock; the Cafe runs this once in the
+     * background after loading.
+     * @return the number of passwords hashed.
+     */
+    public int hashPlainPasswords() {
+        int hashed = 0;
+        for (String id : plainPasswordIds()) {
+            User u = getUser(id);
+            String plain = u != null ? u.getPassword() : null;
+            if (plain == null || PasswordHasher.isHashed(plain)) continue; // A login got there first
+            String hash = PasswordHasher.hash(plain);
+            synchronized (this) {
+                if (!plain.equals(u.getPassword())) continue;
+                u.setPassword(hash);
+            }
+            hashed++;
+        }
+        if (hashed > 0) saveUsers();
+        return hashed;
+    }
+
+    private synchronized List<String> plainPasswordIds() {
+        List<String> ids = new ArrayList<>();
+        for (User u : pinned.values()) {
+            if (!PasswordHasher.isHashed(u.getPassword())) ids.add(u.getId());
+        }
+        for (int row = 0; row < imageRows; row++) {
+            String id = index.getString(row, 0);
+            if (!pinned.containsKey(id) && !PasswordHasher.isHashed(index.getString(row, 4))) ids.add(id);
+        }
+        return ids;
+    }
+
+    public synchronized User getUser(String id) {
+        if (id == null) return null;
+        User u = pinned.get(id);
+        if (u == null) u = hot.get(id);
+        if (u == null) u = liveUser(id);
+        if (u == null) {
+            int row = findRow(id);
+            if (row >= 0) u = materialize(User.read(index, row));
+        }
+        if (u != null && !pinned.containsKey(id)) hot.put(id, u);
+        return u;
+    }
+
+    // --- Paging ---
+
+    /** Total number of users, without loading them. */
+    public synchronized int getUserCount() {
+        return imageRows + extraCount;
+    }
+
+    /**
+     * Users in ID order from the given position; only these are read from disk.
+     * Used by PagedUserList to back a TableView.
+     */
+    public synchronized List<User> getUsersPage(int offset, int limit) {
+        int end = Math.min(getUserCount(), offset + limit);
+        List<User> page = new ArrayList<>(Math.max(end - offset, 0));
+        if (offset >= end) return page;
+
+        int[] positions = extraPositions();
+        // Extras placed before 'offset' shift the image rows to the right
+        int extra = lowerBound(positions, extraCount, offset);
+        for (int pos = offset; pos < end; pos++) {
+            if (extra < extraCount && positions[extra] == pos) {
+                page.add(pinned.get(extraIds[extra++]));
+            } else {
+                int row = pos - extra;
+                String id = index.getString(row, 0);
+                User u = pinned.get(id);
+                if (u == null) u = hot.get(id);
+                if (u == null) u = liveUser(id);
+                if (u == null) u = materialize(User.read(index, row));
+                page.add(u);
             }
+        }
+        return page;
+    }
+
+    // --- Loading ---
+
+    public synchronized void loadUsers() {
+        // A current sorted image becomes the index; nothing else is read up front
+        if (BinarySnapshot.isUsable(USER_FILE, IMAGE_SCHEMA)) {
+            try {
+                // Later saves replace users.csv.bin, which a live mapping would block on
+                // Windows, so the session maps a private copy of it instead
+                Files.copy(Paths.get(BinarySnapshot.imageName(USER_FILE)), Paths.get(INDEX_FILE),
+                        StandardCopyOption.REPLACE_EXISTING);
+                BinarySnapshot.Reader reader = BinarySnapshot.map(INDEX_FILE, IMAGE_SCHEMA);
+                if (reader != null && reader.rowCount() > 0) {
+                    index = reader;
+                    imageRows = reader.rowCount();
+                    return;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+
+        // Verifies the checksum trailer and falls back to the .bak generation if needed
+        try {
+            CsvReader records = CsvFiles.openRecords(USER_FILE);
+            if (records == null) {
+                initializeDefaults();
+                return;
+            }
+            records.nextRecord(); // Skip header
+            while (records.nextRecord()) {
+                User u = User.read(records);
+                if (u != null && !pinned.containsKey(u.getId())) {
+                    register(u);
+                    pin(u);
+                    extraIds = ensureCapacity(extraIds, extraCount + 1);
+                    extraIds[extraCount++] = u.getId();
+                }
+            }
+            Arrays.sort(extraIds, 0, extraCount);
+            extraPositions = null;
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    // --- Saving ---
+
+    /** Queues a background write of the user file (never blocks on disk I/O). */
     public void saveUsers() {
-        try (PrintWriter pw = new PrintWriter(new FileWriter(USER_FILE))) {
-            pw.println("ID,Name,Role,Points,Password");
-            for (User u : users.values()) {
-                pw.println(u.toCSV());
+        PersistenceService.getInstance().write(snapshot());
+    }
+
+    /**
+     * Captures the pinned users for the persistence thread; the store counts as clean
+     * afterwards. The unchanged users are merged in from the index on the writer thread,
+     * so a save never walks the whole user base on the caller's thread.
+     */
+    synchronized PersistenceService.Snapshot snapshot() {
+        TreeMap<String, User> changed = new TreeMap<>();
+        for (User u : pinned.values()) {
+            changed.put(u.getId(), new User(u.getId(), u.getName(), u.getRole(), u.getPoints(), u.getPassword()));
+        }
+        BinarySnapshot.Reader image = index;
+        dirtyUsers.clear();
+        dirty = false;
+        return PersistenceService.Snapshot.deferred(USER_FILE, getUserCount(), () -> writeMerged(changed, image));
+    }
+
+    /** Runs on the writer thread: index rows and changed users merged in ID order. */
+    private static PersistenceService.Snapshot writeMerged(TreeMap<String, User> changed, BinarySnapshot.Reader image) {
+        int rowCount = image != null ? image.rowCount() : 0;
+        List<String> rows = new ArrayList<>(rowCount + changed.size());
+        BinarySnapshot.Writer sorted = new BinarySnapshot.Writer(IMAGE_SCHEMA);
+        int row = 0;
+        Map.Entry<String, User> next = changed.pollFirstEntry();
+        while (row < rowCount || next != null) {
+            String imageId = row < rowCount ? image.getString(row, 0) : null;
+            User u;
+            if (next != null && (imageId == null || next.getKey().compareTo(imageId) <= 0)) {
+                if (next.getKey().equals(imageId)) row++; // Changed copy replaces the stored row
+                u = next.getValue();
+                next = changed.pollFirstEntry();
+            } else {
+                u = User.read(image, row++);
             }
-        } catch (IOException e) {
-            e.printStackTrace();
+            rows.add(u.toCSV());
+            u.writeTo(sorted);
+        }
+        // The image is the index for the next start, so it is written whether or not
+        // binary snapshots are enabled for the other stores
+        return new PersistenceService.Snapshot(USER_FILE, HEADER, rows).withImage(sorted.toByteArray());
+    }
+
+    // --- Dirty Tracking ---
+
+    /** True if anything changed since the last successful save. */
+    public synchronized boolean isDirty() { return dirty; }
+
+    /** Number of users modified since the last save. */
+    public synchronized int getDirtyCount() { return dirtyUsers.size(); }
+
+    private void register(User u) {
+        u.setOwner(this);
+    }
+
+    /** Called by a User after its password changed. */
+    synchronized void userChanged(User u) {
+        markDirty(u);
+    }
+
+    /** Called by a User after its points changed. */
+    void pointsChanged(User u) {
+        userChanged(u);
+        events.publish(ChangeBus.POINTS, u);
+    }
+
+    private void markDirty(User u) {
+        pin(u); // Changed users must survive until they are saved and the image is re-read
+        dirtyUsers.add(u.getId());
+        dirty = true;
+    }
+
+    // --- Index Helpers ---
+
+    private void pin(User u) {
+        pinned.put(u.getId(), u);
+        hot.remove(u.getId());
+    }
+
+    /** Registers a user just read from the image and remembers it while it is referenced. */
+    private User materialize(User u) {
+        register(u);
+        purgeReleased();
+        live.put(u.getId(), new UserRef(u, released));
+        return u;
+    }
+
+    private User liveUser(String id) {
+        UserRef ref = live.get(id);
+        return ref != null ? ref.get() : null;
+    }
+
+    private void purgeReleased() {
+        UserRef ref;
+        while ((ref = (UserRef) released.poll()) != null) {
+            if (live.get(ref.id) == ref) live.remove(ref.id);
         }
     }
 
+    /** @return the index row holding the ID, or -(insertion point + 1). */
+    private int findRow(String id) {
+        int low = 0;
+        int high = imageRows - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = index.getString(mid, 0).compareTo(id);
+            if (cmp < 0) low = mid + 1;
+            else if (cmp > 0) high = mid - 1;
+            else return mid;
+        }
+        return -(low + 1);
+    }
+
+    private void addExtra(String id) {
+        int at = -(Arrays.binarySearch(extraIds, 0, extraCount, id) + 1);
+        if (at < 0) return;
+        extraIds = ensureCapacity(extraIds, extraCount + 1);
+        System.arraycopy(extraIds, at, extraIds, at + 1, extraCount - at);
+        extraIds[at] = id;
+        extraCount++;
+        extraPositions = null;
+    }
+
+    /** Position of every extra ID in the merged order: its index plus the image rows before it. */
+    private int[] extraPositions() {
+        if (extraPositions != null) return extraPositions;
+        int[] positions = new int[extraCount];
+        for (int i = 0; i < extraCount; i++) {
+            int before = -(findRow(extraIds[i]) + 1); // Index rows sorting before this ID
+            positions[i] = i + before;
+        }
+        extraPositions = positions;
+        return positions;
+    }
+
+    private static int lowerBound(int[] values, int count, int key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    private static String[] ensureCapacity(String[] array, int size) {
+        return size <= array.length ? array : Arrays.copyOf(array, Math.max(size, array.length * 2));
+    }
+
     private void initializeDefaults() {
-        users.put("M001", new User("M001", "KC Carr", "Manager", 0, "1234"));
-        users.put("C001", new User("C001", "Nigel Cashier", "Cashier", 0, "1234"));
-        users.put("U001", new User("U001", "Sophia Common", "Common", 50, "1234"));
-        users.put("V001", new User("V001", "Antoni VIP", "VIP", 120, "1234"));
+        for (User u : new User[] {
+                new User("M001", "KC Carr", "Manager", 0, "1234"),
+                new User("C001", "Nigel Cashier", "Cashier", 0, "1234"),
+                new User("U001", "Sophia Common", "Common", 50, "1234"),
+                new User("V001", "Antoni VIP", "VIP", 120, "1234") }) {
+            register(u);
+            pin(u);
+            addExtra(u.getId());
+        }
         saveUsers();
     }
 }
\ No newline at end of file